@@ -0,0 +1,50 @@
+USE bd_barbersclub
+GO
+
+-- Tabela fria com os agendamentos Completo/Cancelado mais antigos que o horizonte configurado
+-- (agendamento.arquivo.horizonte-dias). O backend move as linhas em blocos com
+-- DELETE ... OUTPUT INTO, então a tabela não pode ter FOREIGN KEY, CHECK nem triggers.
+-- Os ids são os mesmos da tabela Agendamento.
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'AgendamentoArquivo')
+BEGIN
+    CREATE TABLE AgendamentoArquivo (
+      id INT NOT NULL,
+      dataAgendamento DATETIME NOT NULL,
+      statusAgendamento VARCHAR(50),
+      descricao VARCHAR(500),
+      criadoEm DATETIME,
+      cliente_id INT NOT NULL,
+      barbeiro_id INT NOT NULL,
+      servico_id INT NOT NULL,
+      usuario_id INT,
+      arquivadoEm DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+      CONSTRAINT PK_AgendamentoArquivo PRIMARY KEY (id)
+    );
+
+    PRINT 'Tabela AgendamentoArquivo criada com sucesso!'
+END
+ELSE
+BEGIN
+    PRINT 'Tabela AgendamentoArquivo já existe!'
+END
+
+-- Mesma ordem da paginação por chave da consulta /api/agendamentos/busca
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_AgendamentoArquivo_Data_Id' AND object_id = OBJECT_ID('AgendamentoArquivo'))
+    CREATE NONCLUSTERED INDEX IX_AgendamentoArquivo_Data_Id
+    ON AgendamentoArquivo (dataAgendamento DESC, id DESC)
+    INCLUDE (statusAgendamento, cliente_id, barbeiro_id, servico_id, usuario_id);
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_AgendamentoArquivo_Barbeiro_Data_Id' AND object_id = OBJECT_ID('AgendamentoArquivo'))
+    CREATE NONCLUSTERED INDEX IX_AgendamentoArquivo_Barbeiro_Data_Id
+    ON AgendamentoArquivo (barbeiro_id, dataAgendamento DESC, id DESC)
+    INCLUDE (statusAgendamento, cliente_id, servico_id, usuario_id);
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_AgendamentoArquivo_Usuario_Data_Id' AND object_id = OBJECT_ID('AgendamentoArquivo'))
+    CREATE NONCLUSTERED INDEX IX_AgendamentoArquivo_Usuario_Data_Id
+    ON AgendamentoArquivo (usuario_id, dataAgendamento DESC, id DESC)
+    INCLUDE (statusAgendamento, cliente_id, barbeiro_id, servico_id);
+
+PRINT 'Índices de AgendamentoArquivo verificados!'
+
+GO
@@ -0,0 +1,86 @@
+USE bd_barbersclub
+GO
+
+-- Modelo único de conversa do chat, no lugar da divisão MensagensChat / MensagensBarbeiro.
+-- Toda conversa é entre o admin (id 1) e um participante, identificado por tipo + id:
+-- clientes e barbeiros com o mesmo id deixam de se confundir e nenhuma leitura ou
+-- escrita precisa consultar a tabela Barbeiro para descobrir qual tabela usar.
+--
+-- Rodar depois de sequencia_mensagens_chat.sql: a migração reaproveita o seq já
+-- numerado, então os cursores "since" que os apps guardaram continuam válidos.
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'Conversa')
+BEGIN
+    CREATE TABLE Conversa (
+        id INT PRIMARY KEY IDENTITY,
+        tipo VARCHAR(10) NOT NULL, -- 'cliente' ou 'barbeiro'
+        participante_id INT NOT NULL,
+        ultimo_seq BIGINT NOT NULL DEFAULT 0,
+        criadaEm DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+        CONSTRAINT UQ_Conversa_Participante UNIQUE (tipo, participante_id)
+    );
+
+    PRINT 'Tabela Conversa criada com sucesso!'
+END
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'MensagemConversa')
+BEGIN
+    CREATE TABLE MensagemConversa (
+        id INT IDENTITY CONSTRAINT PK_MensagemConversa PRIMARY KEY NONCLUSTERED,
+        conversa_id INT NOT NULL,
+        seq BIGINT NOT NULL,
+        mensagem VARCHAR(255) NOT NULL,
+        remetente_tipo VARCHAR(10) NOT NULL, -- 'admin' ou o tipo da conversa
+        lida BIT NOT NULL DEFAULT 0,
+        mensagemBot BIT NOT NULL DEFAULT 0,
+        iniciadoEm DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+        FOREIGN KEY (conversa_id) REFERENCES Conversa(id)
+    );
+
+    -- Toda leitura é "mensagens da conversa X depois do seq Y": a tabela fica ordenada assim
+    CREATE UNIQUE CLUSTERED INDEX UX_MensagemConversa_Conversa_Seq
+    ON MensagemConversa (conversa_id, seq);
+
+    PRINT 'Tabela MensagemConversa criada com sucesso!'
+END
+GO
+
+-- Migração das conversas existentes
+INSERT INTO Conversa (tipo, participante_id)
+SELECT DISTINCT 'barbeiro', mb.barbeiro_id
+FROM MensagensBarbeiro mb
+WHERE NOT EXISTS (SELECT 1 FROM Conversa c WHERE c.tipo = 'barbeiro' AND c.participante_id = mb.barbeiro_id);
+
+INSERT INTO Conversa (tipo, participante_id)
+SELECT DISTINCT 'cliente', mc.conversa_cliente_id
+FROM MensagensChat mc
+WHERE (mc.remetente_id = 1 OR mc.destinatario_id = 1)
+AND NOT EXISTS (SELECT 1 FROM Conversa c WHERE c.tipo = 'cliente' AND c.participante_id = mc.conversa_cliente_id);
+
+-- (conversa_id, seq) identifica a mensagem, então rodar de novo não duplica nada
+INSERT INTO MensagemConversa (conversa_id, seq, mensagem, remetente_tipo, lida, mensagemBot, iniciadoEm)
+SELECT c.id, mb.seq, mb.mensagem, mb.remetente_tipo, ISNULL(mb.lida, 0), ISNULL(mb.mensagemBot, 0),
+       ISNULL(mb.iniciadoEm, CURRENT_TIMESTAMP)
+FROM MensagensBarbeiro mb
+JOIN Conversa c ON c.tipo = 'barbeiro' AND c.participante_id = mb.barbeiro_id
+WHERE NOT EXISTS (SELECT 1 FROM MensagemConversa m WHERE m.conversa_id = c.id AND m.seq = mb.seq);
+
+INSERT INTO MensagemConversa (conversa_id, seq, mensagem, remetente_tipo, lida, mensagemBot, iniciadoEm)
+SELECT c.id, mc.seq, mc.mensagem, CASE WHEN mc.remetente_id = 1 THEN 'admin' ELSE 'cliente' END,
+       ISNULL(mc.lida, 0), ISNULL(mc.mensagemBot, 0), ISNULL(mc.iniciadoEm, CURRENT_TIMESTAMP)
+FROM MensagensChat mc
+JOIN Conversa c ON c.tipo = 'cliente' AND c.participante_id = mc.conversa_cliente_id
+WHERE (mc.remetente_id = 1 OR mc.destinatario_id = 1)
+AND NOT EXISTS (SELECT 1 FROM MensagemConversa m WHERE m.conversa_id = c.id AND m.seq = mc.seq);
+
+-- O próximo seq de cada conversa continua de onde a migração parou
+UPDATE c SET ultimo_seq = m.maior_seq
+FROM Conversa c
+JOIN (SELECT conversa_id, MAX(seq) AS maior_seq FROM MensagemConversa GROUP BY conversa_id) m ON m.conversa_id = c.id
+WHERE c.ultimo_seq < m.maior_seq;
+
+PRINT 'Mensagens migradas para MensagemConversa!'
+GO
+
+-- MensagensChat e MensagensBarbeiro não recebem mais escritas da aplicação e podem
+-- ser removidas depois de conferida a migração.
@@ -0,0 +1,19 @@
+USE bd_barbersclub
+GO
+
+-- Caixa de entrada do chat (/api/chat/inbox): contagem de não lidas por conversa.
+-- A última mensagem de cada conversa já sai do índice clusterizado (conversa_id, seq);
+-- este índice filtrado guarda só as mensagens não lidas, então a contagem não
+-- percorre o histórico das conversas.
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_MensagemConversa_NaoLidas' AND object_id = OBJECT_ID('MensagemConversa'))
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_MensagemConversa_NaoLidas
+    ON MensagemConversa (conversa_id, seq)
+    INCLUDE (remetente_tipo)
+    WHERE lida = 0;
+
+    PRINT 'Índice IX_MensagemConversa_NaoLidas criado com sucesso!'
+END
+
+GO
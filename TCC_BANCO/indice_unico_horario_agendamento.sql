@@ -0,0 +1,39 @@
+USE bd_barbersclub
+GO
+
+-- Garantia no banco contra dois agendamentos ativos do mesmo barbeiro no mesmo horário.
+-- O índice filtrado só considera Pendente/Confirmado, então cancelados e concluídos não bloqueiam.
+
+-- Listar duplicados que impediriam a criação do índice
+SELECT barbeiro_id, dataAgendamento, COUNT(*) AS total
+FROM Agendamento
+WHERE statusAgendamento IN ('Pendente', 'Confirmado')
+GROUP BY barbeiro_id, dataAgendamento
+HAVING COUNT(*) > 1;
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'UX_Agendamento_Barbeiro_Horario_Ativo' AND object_id = OBJECT_ID('Agendamento'))
+BEGIN
+    IF EXISTS (
+        SELECT 1 FROM Agendamento
+        WHERE statusAgendamento IN ('Pendente', 'Confirmado')
+        GROUP BY barbeiro_id, dataAgendamento
+        HAVING COUNT(*) > 1
+    )
+    BEGIN
+        PRINT 'Existem agendamentos duplicados! Cancele os duplicados listados acima e rode o script novamente.'
+    END
+    ELSE
+    BEGIN
+        CREATE UNIQUE NONCLUSTERED INDEX UX_Agendamento_Barbeiro_Horario_Ativo
+        ON Agendamento (barbeiro_id, dataAgendamento)
+        WHERE statusAgendamento IN ('Pendente', 'Confirmado');
+
+        PRINT 'Índice UX_Agendamento_Barbeiro_Horario_Ativo criado com sucesso!'
+    END
+END
+ELSE
+BEGIN
+    PRINT 'Índice UX_Agendamento_Barbeiro_Horario_Ativo já existe!'
+END
+
+GO
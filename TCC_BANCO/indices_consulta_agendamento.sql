@@ -0,0 +1,40 @@
+USE bd_barbersclub
+GO
+
+-- Índices compostos para a consulta paginada /api/agendamentos/busca.
+-- Todos terminam em (dataAgendamento DESC, id DESC), a mesma ordem da paginação por chave,
+-- então cada página é uma busca no índice seguida de uma leitura de no máximo "limite" linhas.
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Agendamento_Data_Id' AND object_id = OBJECT_ID('Agendamento'))
+    CREATE NONCLUSTERED INDEX IX_Agendamento_Data_Id
+    ON Agendamento (dataAgendamento DESC, id DESC)
+    INCLUDE (statusAgendamento, cliente_id, barbeiro_id, servico_id, usuario_id);
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Agendamento_Barbeiro_Data_Id' AND object_id = OBJECT_ID('Agendamento'))
+    CREATE NONCLUSTERED INDEX IX_Agendamento_Barbeiro_Data_Id
+    ON Agendamento (barbeiro_id, dataAgendamento DESC, id DESC)
+    INCLUDE (statusAgendamento, cliente_id, servico_id, usuario_id);
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Agendamento_Usuario_Data_Id' AND object_id = OBJECT_ID('Agendamento'))
+    CREATE NONCLUSTERED INDEX IX_Agendamento_Usuario_Data_Id
+    ON Agendamento (usuario_id, dataAgendamento DESC, id DESC)
+    INCLUDE (statusAgendamento, cliente_id, barbeiro_id, servico_id);
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Agendamento_Status_Data_Id' AND object_id = OBJECT_ID('Agendamento'))
+    CREATE NONCLUSTERED INDEX IX_Agendamento_Status_Data_Id
+    ON Agendamento (statusAgendamento, dataAgendamento DESC, id DESC)
+    INCLUDE (cliente_id, barbeiro_id, servico_id, usuario_id);
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Agendamento_Servico_Data_Id' AND object_id = OBJECT_ID('Agendamento'))
+    CREATE NONCLUSTERED INDEX IX_Agendamento_Servico_Data_Id
+    ON Agendamento (servico_id, dataAgendamento DESC, id DESC)
+    INCLUDE (statusAgendamento, cliente_id, barbeiro_id, usuario_id);
+
+-- Filtro por barbearia passa pelo Barbeiro
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_Barbeiro_Barbearia' AND object_id = OBJECT_ID('Barbeiro'))
+    CREATE NONCLUSTERED INDEX IX_Barbeiro_Barbearia
+    ON Barbeiro (barbearia_id);
+
+PRINT 'Índices de consulta de agendamentos verificados!'
+
+GO
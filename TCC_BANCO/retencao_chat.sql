@@ -0,0 +1,40 @@
+USE bd_barbersclub
+GO
+
+-- Tabela fria das mensagens do chat mais antigas que chat.retencao.mensagens.dias
+-- (com chat.retencao.mensagens.acao=arquivar). O backend move as linhas em blocos com
+-- DELETE ... OUTPUT INTO, então a tabela não pode ter FOREIGN KEY, CHECK nem triggers.
+-- Os ids são os mesmos da tabela MensagemConversa.
+--
+-- Rodar depois de conversa_chat.sql.
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'MensagemConversaArquivo')
+BEGIN
+    CREATE TABLE MensagemConversaArquivo (
+        id INT NOT NULL,
+        conversa_id INT NOT NULL,
+        seq BIGINT NOT NULL,
+        mensagem VARCHAR(255) NOT NULL,
+        remetente_tipo VARCHAR(10) NOT NULL,
+        lida BIT NOT NULL,
+        mensagemBot BIT NOT NULL,
+        iniciadoEm DATETIME NOT NULL,
+        arquivadoEm DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+        CONSTRAINT PK_MensagemConversaArquivo PRIMARY KEY (id)
+    );
+
+    PRINT 'Tabela MensagemConversaArquivo criada com sucesso!'
+END
+ELSE
+BEGIN
+    PRINT 'Tabela MensagemConversaArquivo já existe!'
+END
+
+-- Consulta do histórico arquivado de uma conversa, na mesma ordem da tabela quente
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_MensagemConversaArquivo_Conversa_Seq' AND object_id = OBJECT_ID('MensagemConversaArquivo'))
+    CREATE NONCLUSTERED INDEX IX_MensagemConversaArquivo_Conversa_Seq
+    ON MensagemConversaArquivo (conversa_id, seq);
+
+PRINT 'Índices de MensagemConversaArquivo verificados!'
+
+GO
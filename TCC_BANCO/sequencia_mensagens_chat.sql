@@ -0,0 +1,68 @@
+USE bd_barbersclub
+GO
+
+-- Sequência por conversa para o chat: seq cresce de 1 em 1 dentro de cada conversa e
+-- é o cursor "since" de /api/chat/messages e /api/chat/admin-messages.
+-- iniciadoEm sozinho empata em mensagens do mesmo instante e o id IDENTITY pode ser
+-- confirmado fora de ordem; seq é gravado sob trava da conversa, na ordem do commit.
+--
+-- Conversa em MensagensBarbeiro: barbeiro_id.
+-- Conversa em MensagensChat: o cliente que fala com o admin (coluna calculada conversa_cliente_id).
+
+IF COL_LENGTH('MensagensBarbeiro', 'seq') IS NULL
+    ALTER TABLE MensagensBarbeiro ADD seq BIGINT NULL;
+
+IF COL_LENGTH('MensagensChat', 'conversa_cliente_id') IS NULL
+    ALTER TABLE MensagensChat ADD conversa_cliente_id AS
+        (CASE WHEN remetente_id = 1 THEN destinatario_id ELSE remetente_id END) PERSISTED;
+
+IF COL_LENGTH('MensagensChat', 'seq') IS NULL
+    ALTER TABLE MensagensChat ADD seq BIGINT NULL;
+GO
+
+-- Numera as mensagens existentes na ordem em que foram enviadas
+IF EXISTS (SELECT 1 FROM MensagensBarbeiro WHERE seq IS NULL)
+BEGIN
+    UPDATE m SET seq = n.numero
+    FROM MensagensBarbeiro m
+    JOIN (SELECT id, ROW_NUMBER() OVER (PARTITION BY barbeiro_id ORDER BY iniciadoEm, id) AS numero
+          FROM MensagensBarbeiro) n ON n.id = m.id;
+
+    PRINT 'Sequência de MensagensBarbeiro preenchida!'
+END
+
+IF EXISTS (SELECT 1 FROM MensagensChat WHERE seq IS NULL)
+BEGIN
+    UPDATE m SET seq = n.numero
+    FROM MensagensChat m
+    JOIN (SELECT id, ROW_NUMBER() OVER (PARTITION BY conversa_cliente_id ORDER BY iniciadoEm, id) AS numero
+          FROM MensagensChat) n ON n.id = m.id;
+
+    PRINT 'Sequência de MensagensChat preenchida!'
+END
+GO
+
+ALTER TABLE MensagensBarbeiro ALTER COLUMN seq BIGINT NOT NULL;
+ALTER TABLE MensagensChat ALTER COLUMN seq BIGINT NOT NULL;
+GO
+
+-- Leitura incremental (conversa, seq > ?) e cálculo do próximo seq (MAX por conversa)
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'UX_MensagensBarbeiro_Barbeiro_Seq' AND object_id = OBJECT_ID('MensagensBarbeiro'))
+BEGIN
+    CREATE UNIQUE NONCLUSTERED INDEX UX_MensagensBarbeiro_Barbeiro_Seq
+    ON MensagensBarbeiro (barbeiro_id, seq)
+    INCLUDE (mensagem, lida, iniciadoEm, admin_id, remetente_tipo);
+
+    PRINT 'Índice UX_MensagensBarbeiro_Barbeiro_Seq criado com sucesso!'
+END
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'UX_MensagensChat_Conversa_Seq' AND object_id = OBJECT_ID('MensagensChat'))
+BEGIN
+    CREATE UNIQUE NONCLUSTERED INDEX UX_MensagensChat_Conversa_Seq
+    ON MensagensChat (conversa_cliente_id, seq)
+    INCLUDE (mensagem, lida, iniciadoEm, remetente_id, destinatario_id);
+
+    PRINT 'Índice UX_MensagensChat_Conversa_Seq criado com sucesso!'
+END
+
+GO
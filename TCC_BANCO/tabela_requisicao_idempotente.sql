@@ -0,0 +1,36 @@
+USE bd_barbersclub
+GO
+
+-- Respostas guardadas por Idempotency-Key. Quando o app reenvia um POST com a mesma
+-- chave, o backend devolve a resposta original em vez de executar de novo.
+-- escopo identifica o endpoint (agendamento, chat, avaliacao); impressao é o hash do corpo.
+
+IF NOT EXISTS (SELECT * FROM sys.tables WHERE name = 'RequisicaoIdempotente')
+BEGIN
+    CREATE TABLE RequisicaoIdempotente (
+      escopo VARCHAR(30) NOT NULL,
+      chave VARCHAR(100) NOT NULL,
+      impressao CHAR(64) NOT NULL,
+      statusHttp INT NOT NULL,
+      resposta NVARCHAR(MAX),
+      criadoEm DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+      CONSTRAINT PK_RequisicaoIdempotente PRIMARY KEY (escopo, chave)
+    );
+
+    PRINT 'Tabela RequisicaoIdempotente criada com sucesso!'
+END
+ELSE
+BEGIN
+    PRINT 'Tabela RequisicaoIdempotente já existe!'
+END
+
+-- Usado pela limpeza das chaves vencidas
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'IX_RequisicaoIdempotente_CriadoEm' AND object_id = OBJECT_ID('RequisicaoIdempotente'))
+BEGIN
+    CREATE NONCLUSTERED INDEX IX_RequisicaoIdempotente_CriadoEm
+    ON RequisicaoIdempotente (criadoEm);
+
+    PRINT 'Índice IX_RequisicaoIdempotente_CriadoEm criado com sucesso!'
+END
+
+GO
@@ -1,12 +1,23 @@
 package br.itb.projeto.pizzaria3b;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+import br.itb.projeto.pizzaria3b.service.AutorizacaoChatInterceptor;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableWebSocketMessageBroker
 public class Startup {
 
 	public static void main(String[] args) {
@@ -26,4 +37,28 @@ public class Startup {
 			}
 		};
 	}
+
+	// Chat em tempo real: STOMP em /ws, tópicos em /topic/chat/...
+	// Só as origens do front (app.cors.origens) abrem o WebSocket, e cada assinatura passa pelo interceptor
+	@Bean
+	public WebSocketMessageBrokerConfigurer webSocketConfigurer(AutorizacaoChatInterceptor autorizacaoChatInterceptor,
+			@Value("${app.cors.origens}") String[] origens) {
+		return new WebSocketMessageBrokerConfigurer() {
+			@Override
+			public void registerStompEndpoints(StompEndpointRegistry registry) {
+				registry.addEndpoint("/ws").setAllowedOriginPatterns(origens);
+			}
+
+			@Override
+			public void configureClientInboundChannel(ChannelRegistration registration) {
+				registration.interceptors(autorizacaoChatInterceptor);
+			}
+
+			@Override
+			public void configureMessageBroker(MessageBrokerRegistry registry) {
+				registry.enableSimpleBroker("/topic");
+				registry.setApplicationDestinationPrefixes("/app");
+			}
+		};
+	}
 }
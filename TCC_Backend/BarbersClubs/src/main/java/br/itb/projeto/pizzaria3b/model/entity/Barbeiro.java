@@ -1,5 +1,7 @@
 package br.itb.projeto.pizzaria3b.model.entity;
 
+import java.time.LocalTime;
+
 import jakarta.persistence.*;
 
 @Entity
@@ -33,6 +35,12 @@ public class Barbeiro {
     
     @Column(name = "disponibilidade")
     private Boolean disponibilidade;
+    
+    @Column(name = "horarioInicial")
+    private LocalTime horarioInicial;
+    
+    @Column(name = "horarioFinal")
+    private LocalTime horarioFinal;
 
     // Getters e Setters
     public Long getId() { return id; }
@@ -61,4 +69,10 @@ public class Barbeiro {
     
     public Boolean getDisponibilidade() { return disponibilidade; }
     public void setDisponibilidade(Boolean disponibilidade) { this.disponibilidade = disponibilidade; }
+    
+    public LocalTime getHorarioInicial() { return horarioInicial; }
+    public void setHorarioInicial(LocalTime horarioInicial) { this.horarioInicial = horarioInicial; }
+    
+    public LocalTime getHorarioFinal() { return horarioFinal; }
+    public void setHorarioFinal(LocalTime horarioFinal) { this.horarioFinal = horarioFinal; }
 }
\ No newline at end of file
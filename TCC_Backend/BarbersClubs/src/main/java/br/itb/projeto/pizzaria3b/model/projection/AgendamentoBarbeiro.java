@@ -0,0 +1,25 @@
+package br.itb.projeto.pizzaria3b.model.projection;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Agendamento visto pelo barbeiro (sem o nome do próprio barbeiro)
+public interface AgendamentoBarbeiro {
+
+    Long getId();
+
+    LocalDateTime getDataAgendamento();
+
+    String getStatusAgendamento();
+
+    String getClienteNome();
+
+    String getServicoNome();
+
+    @JsonProperty("barbeiro_id")
+    Long getBarbeiroId();
+
+    @JsonProperty("usuario_id")
+    Long getUsuarioId();
+}
@@ -0,0 +1,27 @@
+package br.itb.projeto.pizzaria3b.model.projection;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Agendamento com nomes de cliente, serviço e barbeiro (listagens gerais e por usuário)
+public interface AgendamentoDetalhe {
+
+    Long getId();
+
+    LocalDateTime getDataAgendamento();
+
+    String getStatusAgendamento();
+
+    String getClienteNome();
+
+    String getServicoNome();
+
+    String getBarbeiroNome();
+
+    @JsonProperty("barbeiro_id")
+    Long getBarbeiroId();
+
+    @JsonProperty("usuario_id")
+    Long getUsuarioId();
+}
@@ -0,0 +1,15 @@
+package br.itb.projeto.pizzaria3b.model.projection;
+
+import java.time.LocalDateTime;
+
+// Dados mínimos para montar o índice de ocupação
+public interface IntervaloAgendamento {
+
+    Long getId();
+
+    Long getBarbeiroId();
+
+    LocalDateTime getDataAgendamento();
+
+    Integer getDuracao();
+}
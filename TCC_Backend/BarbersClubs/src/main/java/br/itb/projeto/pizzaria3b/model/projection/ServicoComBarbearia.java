@@ -0,0 +1,16 @@
+package br.itb.projeto.pizzaria3b.model.projection;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public interface ServicoComBarbearia extends ServicoResumo {
+
+    // Serviços sem barbearia não enviam esses campos, como antes
+    @JsonProperty("barbearia_id")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Long getBarbeariaId();
+
+    @JsonProperty("barbearia_nome")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String getBarbeariaNome();
+}
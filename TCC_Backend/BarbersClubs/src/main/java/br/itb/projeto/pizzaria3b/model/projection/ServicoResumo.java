@@ -0,0 +1,21 @@
+package br.itb.projeto.pizzaria3b.model.projection;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public interface ServicoResumo {
+
+    Long getId();
+
+    String getNome();
+
+    String getDescricao();
+
+    Integer getDuracao();
+
+    BigDecimal getPreco();
+
+    @JsonProperty("image_url")
+    String getImageUrl();
+}
@@ -0,0 +1,22 @@
+package br.itb.projeto.pizzaria3b.model.projection;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public interface UltimoCorte {
+
+    Long getId();
+
+    LocalDateTime getDataAgendamento();
+
+    String getClienteNome();
+
+    String getServicoNome();
+
+    @JsonProperty("barbeiro_id")
+    Long getBarbeiroId();
+
+    @JsonProperty("usuario_id")
+    Long getUsuarioId();
+}
@@ -1,5 +1,6 @@
 package br.itb.projeto.pizzaria3b.model.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,57 +11,52 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import br.itb.projeto.pizzaria3b.model.entity.Agendamento;
+import br.itb.projeto.pizzaria3b.model.projection.AgendamentoBarbeiro;
+import br.itb.projeto.pizzaria3b.model.projection.AgendamentoDetalhe;
+import br.itb.projeto.pizzaria3b.model.projection.IntervaloAgendamento;
+import br.itb.projeto.pizzaria3b.model.projection.UltimoCorte;
 
 @Repository
 public interface AgendamentoRepository extends JpaRepository<Agendamento, Long> {
     
     @Query(value = "SELECT a.id, a.dataAgendamento, a.statusAgendamento, " +
-                   "c.nome as clienteNome, s.nome as servicoNome, a.barbeiro_id, a.usuario_id " +
+                   "c.nome as clienteNome, s.nome as servicoNome, a.barbeiro_id as barbeiroId, a.usuario_id as usuarioId " +
                    "FROM Agendamento a " +
                    "JOIN Cliente c ON a.cliente_id = c.id " +
                    "JOIN Servico s ON a.servico_id = s.id " +
                    "WHERE a.barbeiro_id = :barbeiroId " +
                    "ORDER BY a.dataAgendamento DESC", nativeQuery = true)
-    List<Object[]> findAgendamentosByBarbeiroId(@Param("barbeiroId") Long barbeiroId);
+    List<AgendamentoBarbeiro> findAgendamentosByBarbeiroId(@Param("barbeiroId") Long barbeiroId);
     
+    // Último corte concluído ou, se não houver, o último agendamento: as duas buscas em uma consulta
     @Query(value = "SELECT TOP 1 a.id, a.dataAgendamento, " +
-                   "c.nome as clienteNome, s.nome as servicoNome, a.barbeiro_id, a.usuario_id " +
+                   "c.nome as clienteNome, s.nome as servicoNome, a.barbeiro_id as barbeiroId, a.usuario_id as usuarioId " +
                    "FROM Agendamento a " +
                    "JOIN Cliente c ON a.cliente_id = c.id " +
                    "JOIN Servico s ON a.servico_id = s.id " +
                    "WHERE a.barbeiro_id = :barbeiroId " +
-                   "AND a.statusAgendamento = 'Completo' " +
-                   "ORDER BY a.dataAgendamento DESC", nativeQuery = true)
-    Object[] findUltimoCorteByBarbeiroId(@Param("barbeiroId") Long barbeiroId);
-    
-    @Query(value = "SELECT TOP 1 a.id, a.dataAgendamento, " +
-                   "c.nome as clienteNome, s.nome as servicoNome " +
-                   "FROM Agendamento a " +
-                   "JOIN Cliente c ON a.cliente_id = c.id " +
-                   "JOIN Servico s ON a.servico_id = s.id " +
-                   "WHERE a.barbeiro_id = :barbeiroId " +
-                   "ORDER BY a.dataAgendamento DESC", nativeQuery = true)
-    Object[] findUltimoAgendamentoByBarbeiroId(@Param("barbeiroId") Long barbeiroId);
+                   "ORDER BY CASE WHEN a.statusAgendamento = 'Completo' THEN 0 ELSE 1 END, a.dataAgendamento DESC", nativeQuery = true)
+    UltimoCorte findUltimoCorteOuAgendamentoByBarbeiroId(@Param("barbeiroId") Long barbeiroId);
     
     @Query(value = "SELECT a.id, a.dataAgendamento, a.statusAgendamento, " +
-                   "c.nome as clienteNome, s.nome as servicoNome, a.barbeiro_id, a.usuario_id " +
+                   "c.nome as clienteNome, s.nome as servicoNome, a.barbeiro_id as barbeiroId, a.usuario_id as usuarioId " +
                    "FROM Agendamento a " +
                    "JOIN Cliente c ON a.cliente_id = c.id " +
                    "JOIN Servico s ON a.servico_id = s.id " +
                    "WHERE a.barbeiro_id = :barbeiroId " +
                    "AND a.statusAgendamento = 'Pendente' " +
                    "ORDER BY a.dataAgendamento ASC", nativeQuery = true)
-    List<Object[]> findAgendamentosPendentesByBarbeiroId(@Param("barbeiroId") Long barbeiroId);
+    List<AgendamentoBarbeiro> findAgendamentosPendentesByBarbeiroId(@Param("barbeiroId") Long barbeiroId);
     
     @Query(value = "SELECT a.id, a.dataAgendamento, a.statusAgendamento, " +
-                   "c.nome as clienteNome, s.nome as servicoNome, a.barbeiro_id, a.usuario_id " +
+                   "c.nome as clienteNome, s.nome as servicoNome, a.barbeiro_id as barbeiroId, a.usuario_id as usuarioId " +
                    "FROM Agendamento a " +
                    "JOIN Cliente c ON a.cliente_id = c.id " +
                    "JOIN Servico s ON a.servico_id = s.id " +
                    "WHERE a.barbeiro_id = :barbeiroId " +
                    "AND a.statusAgendamento = 'Confirmado' " +
                    "ORDER BY a.dataAgendamento ASC", nativeQuery = true)
-    List<Object[]> findAgendamentosConfirmadosByBarbeiroId(@Param("barbeiroId") Long barbeiroId);
+    List<AgendamentoBarbeiro> findAgendamentosConfirmadosByBarbeiroId(@Param("barbeiroId") Long barbeiroId);
     
     @Modifying
     @Transactional
@@ -69,38 +65,82 @@ public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>
 
     @Query(value = "SELECT a.id, a.dataAgendamento, a.statusAgendamento, " +
                    "c.nome as clienteNome, s.nome as servicoNome, b.nome as barbeiroNome, " +
-                   "a.barbeiro_id, a.usuario_id " +
+                   "a.barbeiro_id as barbeiroId, a.usuario_id as usuarioId " +
                    "FROM Agendamento a " +
                    "JOIN Cliente c ON a.cliente_id = c.id " +
                    "JOIN Servico s ON a.servico_id = s.id " +
                    "JOIN Barbeiro b ON a.barbeiro_id = b.id " +
                    "ORDER BY a.dataAgendamento DESC", nativeQuery = true)
-    List<Object[]> findAllAgendamentosWithDetails();
+    List<AgendamentoDetalhe> findAllAgendamentosWithDetails();
 
     @Query(value = "SELECT a.id, a.dataAgendamento, a.statusAgendamento, " +
                    "c.nome as clienteNome, s.nome as servicoNome, b.nome as barbeiroNome, " +
-                   "a.barbeiro_id, a.usuario_id " +
+                   "a.barbeiro_id as barbeiroId, a.usuario_id as usuarioId " +
                    "FROM Agendamento a " +
                    "JOIN Cliente c ON a.cliente_id = c.id " +
                    "JOIN Servico s ON a.servico_id = s.id " +
                    "JOIN Barbeiro b ON a.barbeiro_id = b.id " +
                    "WHERE a.usuario_id = :usuarioId " +
                    "ORDER BY a.dataAgendamento DESC", nativeQuery = true)
-    List<Object[]> findAgendamentosByUsuarioId(@Param("usuarioId") Long usuarioId);
+    List<AgendamentoDetalhe> findAgendamentosByUsuarioId(@Param("usuarioId") Long usuarioId);
 
-    @Query(value = "SELECT COUNT(*) FROM Agendamento " +
-                   "WHERE barbeiro_id = :barbeiroId " +
-                   "AND dataAgendamento = :dataAgendamento " +
-                   "AND statusAgendamento IN ('Pendente', 'Confirmado')", nativeQuery = true)
-    int countAgendamentosByBarbeiroAndDateTime(@Param("barbeiroId") Integer barbeiroId, 
-                                              @Param("dataAgendamento") String dataAgendamento);
+    @Query(value = "SELECT COUNT(*) FROM Agendamento a " +
+                   "JOIN Servico s ON a.servico_id = s.id " +
+                   "WHERE a.barbeiro_id = :barbeiroId " +
+                   "AND a.statusAgendamento IN ('Pendente', 'Confirmado') " +
+                   "AND a.dataAgendamento < :fim " +
+                   "AND DATEADD(MINUTE, s.duracao, a.dataAgendamento) > :inicio", nativeQuery = true)
+    int countConflitosHorario(@Param("barbeiroId") Long barbeiroId,
+                              @Param("inicio") LocalDateTime inicio,
+                              @Param("fim") LocalDateTime fim);
 
-    @Modifying
+    @Query(value = "SELECT a.id, a.barbeiro_id as barbeiroId, a.dataAgendamento, s.duracao " +
+                   "FROM Agendamento a " +
+                   "JOIN Servico s ON a.servico_id = s.id " +
+                   "WHERE a.dataAgendamento >= :aPartirDe " +
+                   "AND a.statusAgendamento IN ('Pendente', 'Confirmado')", nativeQuery = true)
+    List<IntervaloAgendamento> findAgendamentosAtivosAPartirDe(@Param("aPartirDe") LocalDateTime aPartirDe);
+
+    @Query(value = "SELECT duracao FROM Servico WHERE id = :servicoId", nativeQuery = true)
+    Integer findDuracaoServico(@Param("servicoId") Long servicoId);
+
+    // Insert condicional: só grava se nenhum agendamento ativo do barbeiro sobrepõe [dataAgendamento, fim).
+    // UPDLOCK/HOLDLOCK mantém a faixa lida travada até o fim da transação, impedindo que outra
+    // instância da aplicação grave no mesmo intervalo entre a verificação e o insert.
     @Transactional
     @Query(value = "INSERT INTO Agendamento (servico_id, barbeiro_id, dataAgendamento, statusAgendamento, cliente_id, usuario_id) " +
-                   "VALUES (:servicoId, :barbeiroId, :dataAgendamento, 'Pendente', 1, :usuarioId)", nativeQuery = true)
-    void criarAgendamento(@Param("servicoId") Integer servicoId, 
-                         @Param("barbeiroId") Integer barbeiroId,
-                         @Param("dataAgendamento") String dataAgendamento,
-                         @Param("usuarioId") Integer usuarioId);
+                   "OUTPUT CAST(INSERTED.id AS BIGINT) " +
+                   "SELECT :servicoId, :barbeiroId, :dataAgendamento, 'Pendente', 1, :usuarioId " +
+                   "WHERE NOT EXISTS (" +
+                   "SELECT 1 FROM Agendamento a WITH (UPDLOCK, HOLDLOCK) " +
+                   "JOIN Servico s ON a.servico_id = s.id " +
+                   "WHERE a.barbeiro_id = :barbeiroId " +
+                   "AND a.statusAgendamento IN ('Pendente', 'Confirmado') " +
+                   "AND a.dataAgendamento < :fim " +
+                   "AND DATEADD(MINUTE, s.duracao, a.dataAgendamento) > :dataAgendamento)", nativeQuery = true)
+    Long criarAgendamento(@Param("servicoId") Long servicoId, 
+                         @Param("barbeiroId") Long barbeiroId,
+                         @Param("dataAgendamento") LocalDateTime dataAgendamento,
+                         @Param("fim") LocalDateTime fim,
+                         @Param("usuarioId") Long usuarioId);
+
+    // Reagendamento condicional: move o agendamento ativo para [dataAgendamento, fim) do barbeiro,
+    // ignorando o próprio registro na verificação de sobreposição. Devolve null se não moveu.
+    @Transactional
+    @Query(value = "UPDATE Agendamento SET barbeiro_id = :barbeiroId, dataAgendamento = :dataAgendamento " +
+                   "OUTPUT CAST(INSERTED.id AS BIGINT) " +
+                   "WHERE id = :id " +
+                   "AND statusAgendamento IN ('Pendente', 'Confirmado') " +
+                   "AND NOT EXISTS (" +
+                   "SELECT 1 FROM Agendamento a WITH (UPDLOCK, HOLDLOCK) " +
+                   "JOIN Servico s ON a.servico_id = s.id " +
+                   "WHERE a.barbeiro_id = :barbeiroId " +
+                   "AND a.id <> :id " +
+                   "AND a.statusAgendamento IN ('Pendente', 'Confirmado') " +
+                   "AND a.dataAgendamento < :fim " +
+                   "AND DATEADD(MINUTE, s.duracao, a.dataAgendamento) > :dataAgendamento)", nativeQuery = true)
+    Long reagendarAgendamento(@Param("id") Long id,
+                              @Param("barbeiroId") Long barbeiroId,
+                              @Param("dataAgendamento") LocalDateTime dataAgendamento,
+                              @Param("fim") LocalDateTime fim);
 }
\ No newline at end of file
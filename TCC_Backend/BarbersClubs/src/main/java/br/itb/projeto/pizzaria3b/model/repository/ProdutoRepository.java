@@ -9,15 +9,17 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import br.itb.projeto.pizzaria3b.model.entity.Produto;
+import br.itb.projeto.pizzaria3b.model.projection.ServicoComBarbearia;
+import br.itb.projeto.pizzaria3b.model.projection.ServicoResumo;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 
-    @Query(value = "SELECT id, nome, descricao, duracao, preco, image_url FROM Servico WHERE ativo = 1", nativeQuery = true)
-    List<Object[]> findAllServicos();
+    @Query(value = "SELECT id, nome, COALESCE(descricao, '') as descricao, duracao, preco, COALESCE(image_url, '') as imageUrl FROM Servico WHERE ativo = 1", nativeQuery = true)
+    List<ServicoResumo> findAllServicos();
     
-    @Query(value = "SELECT s.id, s.nome, s.descricao, s.duracao, s.preco, s.image_url, s.barbearia_id, b.nome as barbearia_nome FROM Servico s LEFT JOIN Barbearia b ON s.barbearia_id = b.id WHERE s.ativo = 1", nativeQuery = true)
-    List<Object[]> findAllServicosComBarbearia();
+    @Query(value = "SELECT s.id, s.nome, COALESCE(s.descricao, '') as descricao, s.duracao, s.preco, COALESCE(s.image_url, '') as imageUrl, s.barbearia_id as barbeariaId, b.nome as barbeariaNome FROM Servico s LEFT JOIN Barbearia b ON s.barbearia_id = b.id WHERE s.ativo = 1", nativeQuery = true)
+    List<ServicoComBarbearia> findAllServicosComBarbearia();
     
     @Modifying
     @Transactional
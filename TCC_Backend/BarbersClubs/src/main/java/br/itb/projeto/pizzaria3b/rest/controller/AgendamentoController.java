@@ -1,12 +1,18 @@
 package br.itb.projeto.pizzaria3b.rest.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,10 +21,28 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import br.itb.projeto.pizzaria3b.model.projection.AgendamentoBarbeiro;
+import br.itb.projeto.pizzaria3b.model.projection.AgendamentoDetalhe;
+import br.itb.projeto.pizzaria3b.model.projection.UltimoCorte;
 import br.itb.projeto.pizzaria3b.model.repository.AgendamentoRepository;
+import br.itb.projeto.pizzaria3b.rest.exception.HorarioOcupadoException;
+import br.itb.projeto.pizzaria3b.rest.exception.ResourceNotFoundException;
+import br.itb.projeto.pizzaria3b.service.AgendamentoConsultaService;
+import br.itb.projeto.pizzaria3b.service.AgendamentoExportacaoService;
+import br.itb.projeto.pizzaria3b.service.AgendamentoFeedService;
+import br.itb.projeto.pizzaria3b.service.AgendamentoService;
+import br.itb.projeto.pizzaria3b.service.ArquivoAgendamentoService;
+import br.itb.projeto.pizzaria3b.service.BuscaHorarioProximoService;
+import br.itb.projeto.pizzaria3b.service.IdempotenciaService;
+import br.itb.projeto.pizzaria3b.service.PainelBarbeiroService;
+import br.itb.projeto.pizzaria3b.service.ReservasHorario;
 
 @CrossOrigin("*")
 @RestController
@@ -27,6 +51,33 @@ public class AgendamentoController {
 
     @Autowired
     private AgendamentoRepository agendamentoRepository;
+
+    @Autowired
+    private AgendamentoService agendamentoService;
+
+    @Autowired
+    private AgendamentoConsultaService agendamentoConsultaService;
+
+    @Autowired
+    private AgendamentoExportacaoService agendamentoExportacaoService;
+
+    @Autowired
+    private PainelBarbeiroService painelBarbeiroService;
+
+    @Autowired
+    private AgendamentoFeedService agendamentoFeedService;
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private ArquivoAgendamentoService arquivoAgendamentoService;
+
+    @Autowired
+    private ReservasHorario reservasHorario;
+
+    @Autowired
+    private BuscaHorarioProximoService buscaHorarioProximoService;
     
     private static List<Map<String, Object>> agendamentosMemoria = new ArrayList<>();
     private static Long nextId = 1L;
@@ -34,45 +85,61 @@ public class AgendamentoController {
     @GetMapping
     public ResponseEntity<?> getAllAgendamentos() {
         try {
-            List<Object[]> resultados = agendamentoRepository.findAllAgendamentosWithDetails();
-            List<Map<String, Object>> agendamentos = resultados.stream()
-                .map(row -> {
-                    Map<String, Object> agendamento = new HashMap<>();
-                    agendamento.put("id", row[0]);
-                    agendamento.put("dataAgendamento", row[1]);
-                    agendamento.put("statusAgendamento", row[2]);
-                    agendamento.put("clienteNome", row[3]);
-                    agendamento.put("servicoNome", row[4]);
-                    agendamento.put("barbeiroNome", row[5]);
-                    agendamento.put("barbeiro_id", row[6]);
-                    agendamento.put("usuario_id", row[7]);
-                    return agendamento;
-                })
-                .collect(Collectors.toList());
+            List<AgendamentoDetalhe> agendamentos = agendamentoRepository.findAllAgendamentosWithDetails();
             return ResponseEntity.ok(agendamentos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar agendamentos: " + e.getMessage());
         }
     }
 
+    // Consulta paginada: para a próxima página, enviar depoisDeData/depoisDeId do campo "proximo"
+    @GetMapping("/busca")
+    public ResponseEntity<?> buscarAgendamentos(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long barbeariaId,
+            @RequestParam(required = false) Long barbeiroId,
+            @RequestParam(required = false) Long servicoId,
+            @RequestParam(required = false) Long usuarioId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime depoisDeData,
+            @RequestParam(required = false) Long depoisDeId,
+            @RequestParam(defaultValue = "20") int limite) {
+        try {
+            AgendamentoConsultaService.Filtro filtro = new AgendamentoConsultaService.Filtro(
+                status, barbeariaId, barbeiroId, servicoId, usuarioId, de, ate);
+            AgendamentoConsultaService.Cursor cursor = null;
+            if (depoisDeData != null && depoisDeId != null) {
+                cursor = new AgendamentoConsultaService.Cursor(depoisDeData, depoisDeId);
+            }
+            return ResponseEntity.ok(agendamentoConsultaService.buscar(filtro, cursor, limite));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar agendamentos: " + e.getMessage());
+        }
+    }
+
+    // Exportação para contabilidade: formato=ndjson (padrão) ou csv, período opcional
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarAgendamentos(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        if ("csv".equalsIgnoreCase(formato)) {
+            return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=agendamentos.csv")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(saida -> agendamentoExportacaoService.exportarCsv(de, ate, saida));
+        }
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=agendamentos.ndjson")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(saida -> agendamentoExportacaoService.exportarNdjson(de, ate, saida));
+    }
+
     @GetMapping("/usuario/{usuarioId}")
     public ResponseEntity<?> getAgendamentosByUsuario(@PathVariable Long usuarioId) {
         try {
-            List<Object[]> resultados = agendamentoRepository.findAgendamentosByUsuarioId(usuarioId);
-            List<Map<String, Object>> agendamentos = resultados.stream()
-                .map(row -> {
-                    Map<String, Object> agendamento = new HashMap<>();
-                    agendamento.put("id", row[0]);
-                    agendamento.put("dataAgendamento", row[1]);
-                    agendamento.put("statusAgendamento", row[2]);
-                    agendamento.put("clienteNome", row[3]);
-                    agendamento.put("servicoNome", row[4]);
-                    agendamento.put("barbeiroNome", row[5]);
-                    agendamento.put("barbeiro_id", row[6]);
-                    agendamento.put("usuario_id", row[7]);
-                    return agendamento;
-                })
-                .collect(Collectors.toList());
+            List<AgendamentoDetalhe> agendamentos = agendamentoRepository.findAgendamentosByUsuarioId(usuarioId);
             return ResponseEntity.ok(agendamentos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar agendamentos: " + e.getMessage());
@@ -82,18 +149,7 @@ public class AgendamentoController {
     @GetMapping("/barbeiro/{barbeiroId}")
     public ResponseEntity<?> getAgendamentosByBarbeiro(@PathVariable Long barbeiroId) {
         try {
-            List<Object[]> resultados = agendamentoRepository.findAgendamentosByBarbeiroId(barbeiroId);
-            List<Map<String, Object>> agendamentos = resultados.stream()
-                .map(row -> Map.of(
-                    "id", row[0],
-                    "dataAgendamento", row[1],
-                    "statusAgendamento", row[2],
-                    "clienteNome", row[3],
-                    "servicoNome", row[4],
-                    "barbeiro_id", row[5],
-                    "usuario_id", row[6]
-                ))
-                .collect(Collectors.toList());
+            List<AgendamentoBarbeiro> agendamentos = agendamentoRepository.findAgendamentosByBarbeiroId(barbeiroId);
             return ResponseEntity.ok(agendamentos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar agendamentos: " + e.getMessage());
@@ -103,52 +159,38 @@ public class AgendamentoController {
     @GetMapping("/ultimo-corte/{barbeiroId}")
     public ResponseEntity<?> getUltimoCorte(@PathVariable Long barbeiroId) {
         try {
-            Object[] ultimoCorte = agendamentoRepository.findUltimoCorteByBarbeiroId(barbeiroId);
-            if (ultimoCorte != null) {
-                Map<String, Object> resultado = Map.of(
-                    "id", ultimoCorte[0],
-                    "dataAgendamento", ultimoCorte[1],
-                    "clienteNome", ultimoCorte[2],
-                    "servicoNome", ultimoCorte[3],
-                    "barbeiro_id", ultimoCorte[4],
-                    "usuario_id", ultimoCorte[5]
-                );
-                return ResponseEntity.ok(resultado);
-            } else {
-                Object[] ultimoAgendamento = agendamentoRepository.findUltimoAgendamentoByBarbeiroId(barbeiroId);
-                if (ultimoAgendamento != null) {
-                    Map<String, Object> resultado = Map.of(
-                        "id", ultimoAgendamento[0],
-                        "dataAgendamento", ultimoAgendamento[1],
-                        "clienteNome", ultimoAgendamento[2],
-                        "servicoNome", ultimoAgendamento[3],
-                        "barbeiro_id", ultimoAgendamento[4],
-                        "usuario_id", ultimoAgendamento[5]
-                    );
-                    return ResponseEntity.ok(resultado);
-                }
-                return ResponseEntity.ok(null);
-            }
+            UltimoCorte ultimoCorte = agendamentoRepository.findUltimoCorteOuAgendamentoByBarbeiroId(barbeiroId);
+            return ResponseEntity.ok(ultimoCorte);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar último corte: " + e.getMessage());
         }
     }
 
+    // Tela inicial do barbeiro em uma chamada: pendentes, confirmados, último corte e agenda completa
+    @GetMapping("/dashboard/{barbeiroId}")
+    public ResponseEntity<?> getDashboard(@PathVariable Long barbeiroId) {
+        try {
+            return ResponseEntity.ok(painelBarbeiroService.buscar(barbeiroId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar painel do barbeiro: " + e.getMessage());
+        }
+    }
+
+    // Server-Sent Events: evento "agendamento" a cada criação ou mudança de status
+    @GetMapping(value = "/eventos/barbeiro/{barbeiroId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter assinarEventosBarbeiro(@PathVariable Long barbeiroId) {
+        return agendamentoFeedService.assinarBarbeiro(barbeiroId);
+    }
+
+    @GetMapping(value = "/eventos/barbearia/{barbeariaId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter assinarEventosBarbearia(@PathVariable Long barbeariaId) {
+        return agendamentoFeedService.assinarBarbearia(barbeariaId);
+    }
+
     @GetMapping("/pendentes/{barbeiroId}")
     public ResponseEntity<?> getAgendamentosPendentes(@PathVariable Long barbeiroId) {
         try {
-            List<Object[]> resultados = agendamentoRepository.findAgendamentosPendentesByBarbeiroId(barbeiroId);
-            List<Map<String, Object>> agendamentos = resultados.stream()
-                .map(row -> Map.of(
-                    "id", row[0],
-                    "dataAgendamento", row[1],
-                    "statusAgendamento", row[2],
-                    "clienteNome", row[3],
-                    "servicoNome", row[4],
-                    "barbeiro_id", row[5],
-                    "usuario_id", row[6]
-                ))
-                .collect(Collectors.toList());
+            List<AgendamentoBarbeiro> agendamentos = agendamentoRepository.findAgendamentosPendentesByBarbeiroId(barbeiroId);
             return ResponseEntity.ok(agendamentos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar agendamentos pendentes: " + e.getMessage());
@@ -158,28 +200,84 @@ public class AgendamentoController {
     @GetMapping("/confirmados/{barbeiroId}")
     public ResponseEntity<?> getAgendamentosConfirmados(@PathVariable Long barbeiroId) {
         try {
-            List<Object[]> resultados = agendamentoRepository.findAgendamentosConfirmadosByBarbeiroId(barbeiroId);
-            List<Map<String, Object>> agendamentos = resultados.stream()
-                .map(row -> Map.of(
-                    "id", row[0],
-                    "dataAgendamento", row[1],
-                    "statusAgendamento", row[2],
-                    "clienteNome", row[3],
-                    "servicoNome", row[4],
-                    "barbeiro_id", row[5],
-                    "usuario_id", row[6]
-                ))
-                .collect(Collectors.toList());
+            List<AgendamentoBarbeiro> agendamentos = agendamentoRepository.findAgendamentosConfirmadosByBarbeiroId(barbeiroId);
             return ResponseEntity.ok(agendamentos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar agendamentos confirmados: " + e.getMessage());
         }
     }
 
+    // Primeiros horários livres do serviço nas barbearias parceiras dentro do raio (km)
+    @GetMapping("/proximos-horarios")
+    public ResponseEntity<?> getProximosHorarios(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam Long servicoId,
+            @RequestParam(defaultValue = "10") Double raio,
+            @RequestParam(defaultValue = "10") int limite) {
+        try {
+            List<BuscaHorarioProximoService.Sugestao> sugestoes =
+                buscaHorarioProximoService.buscar(latitude, longitude, raio, servicoId, limite);
+            return ResponseEntity.ok(sugestoes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar horários próximos: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            // Índice de ocupação ainda não carregado; o resto vai para o CustomAdviceHandler
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/disponibilidade")
+    public ResponseEntity<?> getDisponibilidade(
+            @RequestParam Long barbeiroId,
+            @RequestParam Long servicoId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(defaultValue = "30") int passo) {
+        try {
+            List<LocalDateTime> horarios = agendamentoService.disponibilidade(barbeiroId, servicoId, de, ate, passo);
+            return ResponseEntity.ok(horarios);
+        } catch (ResourceNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar horários disponíveis: " + e.getMessage());
+        }
+    }
+
+    // Corpo: {"dataAgendamento": "...", "barbeiro_id": 2}; barbeiro_id é opcional
+    @PutMapping("/{id}/reagendar")
+    public ResponseEntity<?> reagendarAgendamento(@PathVariable Long id, @RequestBody Map<String, Object> dados) {
+        try {
+            String dataOriginal = (String) dados.get("dataAgendamento");
+            Object barbeiroId = dados.get("barbeiro_id");
+            agendamentoService.reagendar(
+                id,
+                LocalDateTime.parse(dataOriginal.substring(0, 19)),
+                barbeiroId != null ? ((Number) barbeiroId).longValue() : null
+            );
+            return ResponseEntity.ok(Map.of(
+                "message", "Agendamento reagendado com sucesso",
+                "success", true
+            ));
+        } catch (ResourceNotFoundException e) {
+            throw e;
+        } catch (HorarioOcupadoException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "message", e.getMessage(),
+                "success", false
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "message", "Erro ao reagendar agendamento: " + e.getMessage(),
+                "success", false
+            ));
+        }
+    }
+
     @PutMapping("/confirmar/{agendamentoId}")
     public ResponseEntity<?> confirmarAgendamento(@PathVariable Long agendamentoId) {
         try {
-            agendamentoRepository.updateStatusAgendamento(agendamentoId, "Completo");
+            agendamentoService.atualizarStatus(agendamentoId, "Completo");
             return ResponseEntity.ok(Map.of(
                 "message", "Agendamento concluído com sucesso",
                 "success", true
@@ -195,7 +293,7 @@ public class AgendamentoController {
     @PutMapping("/rejeitar/{agendamentoId}")
     public ResponseEntity<?> rejeitarAgendamento(@PathVariable Long agendamentoId) {
         try {
-            agendamentoRepository.updateStatusAgendamento(agendamentoId, "Cancelado");
+            agendamentoService.atualizarStatus(agendamentoId, "Cancelado");
             return ResponseEntity.ok(Map.of(
                 "message", "Agendamento rejeitado com sucesso",
                 "success", true
@@ -208,11 +306,43 @@ public class AgendamentoController {
         }
     }
     
+    // Corpo: [{"id": 1, "status": "Completo"}, {"id": 2, "status": "Cancelado"}, ...]
+    @PutMapping("/status-lote")
+    public ResponseEntity<?> atualizarStatusEmLote(@RequestBody List<Map<String, Object>> itens) {
+        try {
+            Map<Long, String> statusPorId = new LinkedHashMap<>();
+            for (Map<String, Object> item : itens) {
+                statusPorId.put(((Number) item.get("id")).longValue(), (String) item.get("status"));
+            }
+            List<AgendamentoService.ResultadoStatus> resultados = agendamentoService.atualizarStatusEmLote(statusPorId);
+            return ResponseEntity.ok(Map.of(
+                "resultados", resultados,
+                "success", true
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "message", "Erro ao atualizar agendamentos: " + e.getMessage(),
+                "success", false
+            ));
+        }
+    }
+    
+    // Roda o arquivamento na hora, sem esperar o agendamento noturno
+    @PostMapping("/arquivar")
+    public ResponseEntity<?> arquivarAgendamentos() {
+        int arquivados = arquivoAgendamentoService.arquivar();
+        return ResponseEntity.ok(Map.of(
+            "arquivados", arquivados,
+            "limite", arquivoAgendamentoService.limite().toString(),
+            "success", true
+        ));
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<?> cancelarAgendamento(@PathVariable Long id) {
         try {
             System.out.println("DELETE endpoint chamado para ID: " + id);
-            agendamentoRepository.updateStatusAgendamento(id, "Cancelado");
+            agendamentoService.atualizarStatus(id, "Cancelado");
             return ResponseEntity.ok(Map.of(
                 "message", "Agendamento cancelado com sucesso",
                 "success", true
@@ -226,35 +356,114 @@ public class AgendamentoController {
         }
     }
 
-    @PostMapping
-    public ResponseEntity<?> criarAgendamento(@RequestBody Map<String, Object> agendamento) {
+    // Segura o horário por alguns minutos enquanto o cliente conclui o agendamento.
+    // Corpo igual ao do POST de criação; o POST do mesmo usuario_id consome a reserva.
+    @PostMapping("/reservas")
+    public ResponseEntity<?> reservarHorario(@RequestBody Map<String, Object> reserva) {
         try {
-            String dataOriginal = (String) agendamento.get("dataAgendamento");
-            String dataSemTimezone = dataOriginal.substring(0, 19);
-            Integer barbeiroId = (Integer) agendamento.get("barbeiro_id");
-            
-            // Verificar se já existe agendamento no mesmo horário
-            int existingCount = agendamentoRepository.countAgendamentosByBarbeiroAndDateTime(
-                barbeiroId, dataSemTimezone
+            String dataOriginal = (String) reserva.get("dataAgendamento");
+            ReservasHorario.Reserva criada = agendamentoService.reservar(
+                ((Number) reserva.get("servico_id")).longValue(),
+                ((Number) reserva.get("barbeiro_id")).longValue(),
+                LocalDateTime.parse(dataOriginal.substring(0, 19)),
+                ((Number) reserva.get("usuario_id")).longValue()
             );
-            
-            if (existingCount > 0) {
-                return ResponseEntity.badRequest().body(Map.of(
-                    "message", "Este horário já está ocupado",
-                    "success", false
-                ));
+            return ResponseEntity.ok(Map.of(
+                "token", criada.token(),
+                "expiraEm", criada.expiraEm(),
+                "success", true
+            ));
+        } catch (HorarioOcupadoException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "message", e.getMessage(),
+                "success", false
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "message", "Erro ao reservar horário: " + e.getMessage(),
+                "success", false
+            ));
+        }
+    }
+
+    @DeleteMapping("/reservas/{token}")
+    public ResponseEntity<?> liberarReserva(@PathVariable String token) {
+        if (!reservasHorario.liberar(token)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("success", true));
+    }
+
+    // Com Idempotency-Key, um reenvio do app devolve a resposta original sem agendar de novo
+    @PostMapping
+    public ResponseEntity<?> criarAgendamento(@RequestBody Map<String, Object> agendamento,
+            @RequestHeader(value = IdempotenciaService.HEADER, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar("agendamento", chaveIdempotencia, agendamento,
+                () -> criar(agendamento));
+    }
+
+    // Vários serviços seguidos com o mesmo barbeiro, tudo ou nada.
+    // Corpo: {"servicos": [1, 3], "barbeiro_id": 2, "usuario_id": 5, "dataAgendamento": "..."}
+    @PostMapping("/combo")
+    public ResponseEntity<?> criarCombo(@RequestBody Map<String, Object> combo,
+            @RequestHeader(value = IdempotenciaService.HEADER, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar("agendamento-combo", chaveIdempotencia, combo,
+                () -> agendarCombo(combo));
+    }
+
+    private ResponseEntity<?> agendarCombo(Map<String, Object> combo) {
+        try {
+            String dataOriginal = (String) combo.get("dataAgendamento");
+            List<Long> servicoIds = new ArrayList<>();
+            for (Object servicoId : (List<?>) combo.get("servicos")) {
+                servicoIds.add(((Number) servicoId).longValue());
             }
+            List<Long> ids = agendamentoService.criarCombo(
+                servicoIds,
+                ((Number) combo.get("barbeiro_id")).longValue(),
+                LocalDateTime.parse(dataOriginal.substring(0, 19)),
+                ((Number) combo.get("usuario_id")).longValue()
+            );
+            return ResponseEntity.ok(Map.of(
+                "message", "Agendamentos criados com sucesso",
+                "ids", ids,
+                "success", true
+            ));
+        } catch (HorarioOcupadoException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "message", e.getMessage(),
+                "success", false
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "message", "Erro ao criar agendamentos: " + e.getMessage(),
+                "success", false
+            ));
+        }
+    }
+
+    private ResponseEntity<?> criar(Map<String, Object> agendamento) {
+        try {
+            String dataOriginal = (String) agendamento.get("dataAgendamento");
+            LocalDateTime dataSemTimezone = LocalDateTime.parse(dataOriginal.substring(0, 19));
+            Long barbeiroId = ((Number) agendamento.get("barbeiro_id")).longValue();
             
-            agendamentoRepository.criarAgendamento(
-                (Integer) agendamento.get("servico_id"),
+            // Verifica sobreposição com outros agendamentos do barbeiro pelo índice em memória
+            agendamentoService.criar(
+                ((Number) agendamento.get("servico_id")).longValue(),
                 barbeiroId,
                 dataSemTimezone,
-                (Integer) agendamento.get("usuario_id")
+                ((Number) agendamento.get("usuario_id")).longValue()
             );
             return ResponseEntity.ok(Map.of(
                 "message", "Agendamento criado com sucesso",
                 "success", true
             ));
+        } catch (HorarioOcupadoException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "message", e.getMessage(),
+                "success", false
+            ));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "message", "Erro ao criar agendamento: " + e.getMessage(),
@@ -19,6 +19,8 @@ import br.itb.projeto.pizzaria3b.model.entity.Barbeiro;
 import br.itb.projeto.pizzaria3b.model.entity.Usuario;
 import br.itb.projeto.pizzaria3b.model.repository.AdminRepository;
 import br.itb.projeto.pizzaria3b.model.repository.BarbeiroRepository;
+import br.itb.projeto.pizzaria3b.service.ChatService;
+import br.itb.projeto.pizzaria3b.service.TokenSessaoService;
 import br.itb.projeto.pizzaria3b.service.UsuarioService;
 
 @CrossOrigin("*")
@@ -34,6 +36,9 @@ public class AuthController {
     
     @Autowired
     private BarbeiroRepository barbeiroRepository;
+    
+    @Autowired
+    private TokenSessaoService tokenSessaoService;
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody Map<String, String> credentials) {
@@ -44,7 +49,7 @@ public class AuthController {
         Usuario cliente = usuarioService.findByEmailAndSenha(email, senha);
         if (cliente != null) {
             Map<String, Object> response = new HashMap<>();
-            response.put("token", "token-" + System.currentTimeMillis());
+            response.put("token", tokenSessaoService.gerar(ChatService.CLIENTE, cliente.getId()));
             response.put("id", cliente.getId());
             response.put("nome", cliente.getNome());
             response.put("email", cliente.getEmail());
@@ -56,7 +61,7 @@ public class AuthController {
         Optional<Admin> admin = adminRepository.findByEmail(email);
         if (admin.isPresent() && admin.get().getSenha().equals(senha)) {
             Map<String, Object> response = new HashMap<>();
-            response.put("token", "token-" + System.currentTimeMillis());
+            response.put("token", tokenSessaoService.gerar(ChatService.ADMIN, admin.get().getId()));
             response.put("id", admin.get().getId());
             response.put("nome", admin.get().getNome());
             response.put("email", admin.get().getEmail());
@@ -68,7 +73,7 @@ public class AuthController {
         Optional<Barbeiro> barbeiro = barbeiroRepository.findByEmail(email);
         if (barbeiro.isPresent() && barbeiro.get().getSenha().equals(senha)) {
             Map<String, Object> response = new HashMap<>();
-            response.put("token", "token-" + System.currentTimeMillis());
+            response.put("token", tokenSessaoService.gerar(ChatService.BARBEIRO, barbeiro.get().getId()));
             response.put("id", barbeiro.get().getId());
             response.put("nome", barbeiro.get().getNome());
             response.put("email", barbeiro.get().getEmail());
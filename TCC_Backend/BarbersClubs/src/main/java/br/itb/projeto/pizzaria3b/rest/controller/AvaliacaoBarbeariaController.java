@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -21,6 +22,7 @@ import br.itb.projeto.pizzaria3b.model.entity.Cliente;
 import br.itb.projeto.pizzaria3b.model.repository.AvaliacaoBarbeariaRepository;
 import br.itb.projeto.pizzaria3b.model.repository.BarbeariaRepository;
 import br.itb.projeto.pizzaria3b.model.repository.ClienteRepository;
+import br.itb.projeto.pizzaria3b.service.IdempotenciaService;
 
 @RestController
 @RequestMapping("/api/avaliacoes")
@@ -36,6 +38,9 @@ public class AvaliacaoBarbeariaController {
     @Autowired
     private ClienteRepository clienteRepository;
 
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
     // Listar todas as avaliações
     @GetMapping
     public ResponseEntity<List<AvaliacaoBarbearia>> listarAvaliacoes() {
@@ -67,7 +72,13 @@ public class AvaliacaoBarbeariaController {
 
     // Criar nova avaliação
     @PostMapping
-    public ResponseEntity<?> criarAvaliacao(@RequestBody AvaliacaoBarbearia avaliacao) {
+    public ResponseEntity<?> criarAvaliacao(@RequestBody AvaliacaoBarbearia avaliacao,
+            @RequestHeader(value = IdempotenciaService.HEADER, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar("avaliacao", chaveIdempotencia, avaliacao,
+                () -> salvarAvaliacao(avaliacao));
+    }
+
+    private ResponseEntity<?> salvarAvaliacao(AvaliacaoBarbearia avaliacao) {
         // Validar barbearia
         Optional<Barbearia> barbearia = barbeariaRepository.findById(avaliacao.getBarbearia().getId());
         if (!barbearia.isPresent()) {
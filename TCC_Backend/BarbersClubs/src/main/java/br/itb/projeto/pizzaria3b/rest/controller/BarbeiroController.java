@@ -19,6 +19,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import br.itb.projeto.pizzaria3b.model.entity.Barbeiro;
 import br.itb.projeto.pizzaria3b.model.repository.BarbeiroRepository;
+import br.itb.projeto.pizzaria3b.service.ChatService;
+import br.itb.projeto.pizzaria3b.service.TokenSessaoService;
 
 @RestController
 @RequestMapping("/api/barbeiros")
@@ -31,6 +33,9 @@ public class BarbeiroController {
     @Autowired
     private BarbeiroRepository barbeiroRepository;
     
+    @Autowired
+    private TokenSessaoService tokenSessaoService;
+    
     @GetMapping
     public ResponseEntity<List<Map<String, Object>>> listarBarbeiros() {
         try {
@@ -180,8 +185,8 @@ public class BarbeiroController {
             Map<String, Object> barbeiro = jdbcTemplate.queryForMap(sql, email, senha);
             
             if (barbeiro != null) {
-                // Gerar token (simplificado)
-                String token = "token-" + System.currentTimeMillis();
+                // Token assinado: o WebSocket do chat confere quem é o barbeiro
+                String token = tokenSessaoService.gerar(ChatService.BARBEIRO, barbeiro.get("id"));
                 
                 // Criar resposta
                 Map<String, Object> response = new HashMap<>();
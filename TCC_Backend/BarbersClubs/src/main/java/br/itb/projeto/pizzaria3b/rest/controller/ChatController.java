@@ -15,9 +15,21 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import br.itb.projeto.pizzaria3b.service.BuscaChatService;
+import br.itb.projeto.pizzaria3b.service.CaixaEntradaService;
+import br.itb.projeto.pizzaria3b.service.ChatService;
+import br.itb.projeto.pizzaria3b.service.ChatService.Conversa;
+import br.itb.projeto.pizzaria3b.service.ContadorNaoLidas;
+import br.itb.projeto.pizzaria3b.service.EscritaAgrupadaChat;
+import br.itb.projeto.pizzaria3b.service.IdempotenciaService;
+import br.itb.projeto.pizzaria3b.service.IndiceBuscaChat;
+import br.itb.projeto.pizzaria3b.service.RetencaoChatService;
+
 @RestController
 @RequestMapping("/api/chat")
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000", "*"})
@@ -29,6 +41,27 @@ public class ChatController {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private CaixaEntradaService caixaEntradaService;
+
+    @Autowired
+    private ContadorNaoLidas contadorNaoLidas;
+
+    @Autowired
+    private EscritaAgrupadaChat escritaAgrupadaChat;
+
+    @Autowired
+    private BuscaChatService buscaChatService;
+
+    @Autowired
+    private RetencaoChatService retencaoChatService;
+
     @GetMapping("/clients")
     public ResponseEntity<?> getClients() {
         try {
@@ -58,18 +91,97 @@ public class ChatController {
         }
     }
     
+    @GetMapping("/inbox")
+    public ResponseEntity<?> getInbox() {
+        try {
+            // Uma linha por conversa: última mensagem e não lidas pelo admin, mais recentes primeiro
+            List<Map<String, Object>> inbox = caixaEntradaService.listar().stream()
+                    .map(CaixaEntradaService::paraResposta)
+                    .toList();
+            return ResponseEntity.ok(inbox);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Erro ao buscar conversas: " + e.getMessage());
+        }
+    }
+    
+    @GetMapping("/unread")
+    public ResponseEntity<?> getUnread(@RequestParam(required = false) String tipo,
+            @RequestParam(required = false) Integer participanteId) {
+        try {
+            // Sem participante: total do admin; com participante: o badge dele na conversa com o admin
+            if (tipo == null || participanteId == null) {
+                Long total = contadorNaoLidas.totalAdmin();
+                if (total == null) {
+                    total = jdbcTemplate.queryForObject(
+                            "SELECT COUNT(*) FROM MensagemConversa WHERE lida = 0 AND remetente_tipo <> 'admin'", Long.class);
+                }
+                return ResponseEntity.ok(Map.of("unread", total));
+            }
+            Conversa conversa = chatService.buscarConversa(tipo, participanteId);
+            if (conversa == null) {
+                return ResponseEntity.ok(Map.of("unread", 0));
+            }
+            Integer naoLidas = contadorNaoLidas.naoLidas(conversa.id(), false);
+            if (naoLidas == null) {
+                naoLidas = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM MensagemConversa WHERE conversa_id = ? AND lida = 0 AND remetente_tipo = 'admin'",
+                        Integer.class, conversa.id());
+            }
+            return ResponseEntity.ok(Map.of("unread", naoLidas, "conversa_id", conversa.id()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Erro ao contar mensagens: " + e.getMessage());
+        }
+    }
+    
+    @PostMapping("/conversas/{conversaId}/read")
+    public ResponseEntity<?> markConversationRead(@PathVariable Integer conversaId,
+            @RequestParam(defaultValue = ChatService.ADMIN) String leitor,
+            @RequestParam(required = false) Long ate) {
+        try {
+            Conversa conversa = chatService.buscarConversa(conversaId);
+            if (conversa == null) {
+                return ResponseEntity.status(404).body("Conversa não encontrada");
+            }
+            // ate: seq da última mensagem exibida; sem ele, a conversa inteira
+            int marcadas = chatService.marcarLidas(conversa, leitor, ate);
+            return ResponseEntity.ok(Map.of("success", true, "marked", marcadas));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Erro ao marcar mensagens: " + e.getMessage());
+        }
+    }
+    
+    @GetMapping("/conversas/{conversaId}/messages")
+    public ResponseEntity<?> getConversationMessages(@PathVariable Integer conversaId,
+            @RequestParam(required = false) Long since) {
+        try {
+            Conversa conversa = chatService.buscarConversa(conversaId);
+            if (conversa == null) {
+                return ResponseEntity.status(404).body("Conversa não encontrada");
+            }
+            return ResponseEntity.ok(chatService.mensagens(conversa, since != null ? since : 0L));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Erro ao buscar mensagens: " + e.getMessage());
+        }
+    }
+    
     @GetMapping("/admin-messages/{barberId}")
-    public ResponseEntity<?> getAdminMessages(@PathVariable Integer barberId) {
+    public ResponseEntity<?> getAdminMessages(@PathVariable Integer barberId,
+            @RequestParam(required = false) Long since) {
         try {
-            // Buscar mensagens entre admin e barbeiro na tabela MensagensBarbeiro
-            String sql = "SELECT id, mensagem as message, " +
-                       "CASE WHEN remetente_tipo = 'barbeiro' THEN barbeiro_id ELSE admin_id END as sender_id, " +
-                       "CASE WHEN remetente_tipo = 'barbeiro' THEN admin_id ELSE barbeiro_id END as receiver_id, " +
-                       "iniciadoEm as created_at, lida as is_read " +
-                       "FROM MensagensBarbeiro WHERE barbeiro_id = ? ORDER BY iniciadoEm ASC";
-                      
-            List<Map<String, Object>> result = jdbcTemplate.queryForList(sql, barberId);
-            return ResponseEntity.ok(result);
+            // since: último seq já recebido; sem ele, a conversa inteira
+            Conversa conversa = chatService.buscarConversa(ChatService.BARBEIRO, barberId);
+            if (conversa == null) {
+                return ResponseEntity.ok(List.of());
+            }
+            return ResponseEntity.ok(chatService.mensagens(conversa, since != null ? since : 0L));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Erro ao buscar mensagens: " + e.getMessage());
@@ -77,70 +189,107 @@ public class ChatController {
     }
     
     @GetMapping("/messages/{userId}")
-    public ResponseEntity<?> getMessages(@PathVariable Integer userId) {
+    public ResponseEntity<?> getMessages(@PathVariable Integer userId,
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) String tipo) {
         try {
-            // Verificar se é barbeiro
-            String checkBarberSql = "SELECT COUNT(*) FROM Barbeiro WHERE id = ?";
-            int isBarber = jdbcTemplate.queryForObject(checkBarberSql, Integer.class, userId);
-            
-            if (isBarber > 0) {
-                // Buscar mensagens do barbeiro
-                String sql = "SELECT id, mensagem as message, " +
-                           "CASE WHEN remetente_tipo = 'barbeiro' THEN barbeiro_id ELSE admin_id END as sender_id, " +
-                           "CASE WHEN remetente_tipo = 'barbeiro' THEN admin_id ELSE barbeiro_id END as receiver_id, " +
-                           "iniciadoEm as created_at, lida as is_read " +
-                           "FROM MensagensBarbeiro WHERE barbeiro_id = ? ORDER BY iniciadoEm ASC";
-                           
-                List<Map<String, Object>> result = jdbcTemplate.queryForList(sql, userId);
-                return ResponseEntity.ok(result);
-            } else {
-                // Mensagens normais cliente-admin
-                String sql = "SELECT m.id, m.mensagem as message, " +
-                           "m.remetente_id as sender_id, m.destinatario_id as receiver_id, " +
-                           "m.iniciadoEm as created_at, m.lida as is_read " +
-                           "FROM MensagensChat m " +
-                           "WHERE (m.remetente_id = ? AND m.destinatario_id = 1) " +
-                           "OR (m.remetente_id = 1 AND m.destinatario_id = ?) " +
-                           "ORDER BY m.iniciadoEm ASC";
-                           
-                List<Map<String, Object>> result = jdbcTemplate.queryForList(sql, userId, userId);
-                return ResponseEntity.ok(result);
+            // tipo = "cliente" ou "barbeiro"; apps que ainda não mandam caem no critério antigo
+            String tipoConversa = tipo != null ? tipo : chatService.tipoLegado(userId);
+            Conversa conversa = chatService.buscarConversa(tipoConversa, userId);
+            if (conversa == null) {
+                return ResponseEntity.ok(List.of());
             }
+            return ResponseEntity.ok(chatService.mensagens(conversa, since != null ? since : 0L));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Erro ao buscar mensagens: " + e.getMessage());
         }
     }
     
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam String q,
+            @RequestParam(required = false) Integer conversaId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Informe o texto da busca"));
+        }
+        try {
+            IndiceBuscaChat.Pagina pagina = buscaChatService.buscar(q, conversaId, page, size);
+            List<Map<String, Object>> resultados = new ArrayList<>();
+            for (IndiceBuscaChat.Resultado resultado : pagina.resultados()) {
+                IndiceBuscaChat.Documento documento = resultado.documento();
+                Map<String, Object> item = new HashMap<>();
+                item.put("id", documento.id());
+                item.put("conversa_id", documento.conversaId());
+                item.put("seq", documento.seq());
+                item.put("tipo", documento.tipo());
+                item.put("participante_id", documento.participanteId());
+                item.put("sender_type", documento.remetenteTipo());
+                item.put("message", documento.mensagem());
+                item.put("created_at", documento.enviadaEm());
+                item.put("score", resultado.pontuacao());
+                resultados.add(item);
+            }
+            return ResponseEntity.ok(Map.of(
+                "total", pagina.total(),
+                "page", Math.max(0, page),
+                "size", BuscaChatService.tamanhoPagina(size),
+                "results", resultados
+            ));
+        } catch (IllegalStateException e) {
+            // Índice ainda carregando na subida
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @PostMapping("/send")
-    public ResponseEntity<?> sendMessage(@RequestBody Map<String, Object> dados) {
+    public ResponseEntity<?> sendMessage(@RequestBody Map<String, Object> dados,
+            @RequestHeader(value = IdempotenciaService.HEADER, required = false) String chaveIdempotencia) {
+        return idempotenciaService.executar("chat", chaveIdempotencia, dados, () -> enviarMensagem(dados));
+    }
+
+    private ResponseEntity<?> enviarMensagem(Map<String, Object> dados) {
         try {
             String message = dados.get("message").toString();
             int senderId = Integer.parseInt(dados.get("sender_id").toString());
             int receiverId = Integer.parseInt(dados.get("receiver_id").toString());
+            String senderType = dados.get("sender_type") != null ? dados.get("sender_type").toString() : null;
             
-            // Verificar se é barbeiro
-            String checkBarberSql = "SELECT COUNT(*) FROM Barbeiro WHERE id = ?";
-            int isBarber = jdbcTemplate.queryForObject(checkBarberSql, Integer.class, senderId);
-            
-            if (isBarber > 0) {
-                // Mensagem de barbeiro - usar tabela MensagensBarbeiro
-                String sql = "INSERT INTO MensagensBarbeiro (mensagem, barbeiro_id, admin_id, remetente_tipo) " +
-                           "VALUES (?, ?, 1, 'barbeiro')";
-                jdbcTemplate.update(sql, message, senderId);
-            } else if (receiverId != 1) {
-                // Admin respondendo para barbeiro
-                String sql = "INSERT INTO MensagensBarbeiro (mensagem, barbeiro_id, admin_id, remetente_tipo) " +
-                           "VALUES (?, ?, 1, 'admin')";
-                jdbcTemplate.update(sql, message, receiverId);
+            Conversa conversa;
+            boolean doAdmin;
+            if (dados.get("conversa_id") != null) {
+                conversa = chatService.buscarConversa(Integer.parseInt(dados.get("conversa_id").toString()));
+                if (conversa == null) {
+                    return ResponseEntity.status(404).body(Map.of("error", "Conversa não encontrada"));
+                }
+                doAdmin = senderType != null ? ChatService.ADMIN.equals(senderType) : senderId != conversa.participanteId();
             } else {
-                // Mensagem normal cliente-admin
-                String sql = "INSERT INTO MensagensChat (mensagem, lida, mensagemBot, iniciadoEm, remetente_id, destinatario_id) " +
-                           "VALUES (?, 0, 0, CURRENT_TIMESTAMP, ?, ?)";
-                jdbcTemplate.update(sql, message, senderId, receiverId);
+                // Toda conversa tem o admin de um lado: o participante é quem não é o admin
+                doAdmin = senderType != null ? ChatService.ADMIN.equals(senderType) : receiverId != ChatService.ADMIN_ID;
+                int participanteId = doAdmin ? receiverId : senderId;
+                String tipo = doAdmin ? (String) dados.get("receiver_type") : senderType;
+                if (tipo == null) {
+                    // Apps antigos: o admin só escrevia para barbeiros
+                    tipo = doAdmin ? ChatService.BARBEIRO : chatService.tipoLegado(participanteId);
+                }
+                conversa = chatService.abrirConversa(tipo, participanteId);
             }
             
-            return ResponseEntity.ok(Map.of("success", true, "message", "Mensagem enviada"));
+            // Grava e entrega pelo WebSocket para quem está com a conversa aberta
+            Map<String, Object> enviada = escritaAgrupadaChat.enviar(conversa, doAdmin, message);
+            
+            return ResponseEntity.ok(Map.of("success", true, "message", "Mensagem enviada", "data", enviada));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            // Fila de escrita cheia: o app tenta de novo mais tarde
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
@@ -150,14 +299,16 @@ public class ChatController {
     @PostMapping("/reset-chats")
     public ResponseEntity<?> resetChats() {
         try {
-            // Deletar todas as mensagens do chat
-            String sql = "DELETE FROM MensagensChat";
-            jdbcTemplate.update(sql);
+            // Apaga as mensagens das conversas com clientes em blocos, sem travar quem está enviando
+            int rowsAffected = retencaoChatService.resetarConversasClientes();
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
-                "message", "Todas as conversas foram resetadas com sucesso"
+                "message", "Todas as conversas foram resetadas com sucesso",
+                "rowsAffected", rowsAffected
             ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
@@ -167,18 +318,19 @@ public class ChatController {
     @PostMapping("/clean-empty-chats")
     public ResponseEntity<?> cleanEmptyChats() {
         try {
-            // Deletar conversas vazias (sem mensagens)
-            String sql = "DELETE FROM MensagensChat WHERE id NOT IN (SELECT DISTINCT id FROM MensagensChat WHERE mensagem IS NOT NULL AND mensagem != '')";
-            int rowsAffected = jdbcTemplate.update(sql);
+            // Mensagens vazias, também em blocos
+            int rowsAffected = retencaoChatService.apagarMensagensVazias();
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Conversas vazias removidas com sucesso",
                 "rowsAffected", rowsAffected
             ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+}
@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import br.itb.projeto.pizzaria3b.model.entity.Produto;
+import br.itb.projeto.pizzaria3b.model.projection.ServicoComBarbearia;
 import br.itb.projeto.pizzaria3b.model.repository.ProdutoRepository;
 
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000", "http://localhost:53798", "*"})
@@ -27,39 +28,10 @@ public class ServicoController {
     private ProdutoRepository produtoRepository;
 
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> findAll() {
+    public ResponseEntity<List<ServicoComBarbearia>> findAll() {
         try {
             // Buscar dados reais da tabela Servico com informações da barbearia
-            List<Object[]> resultados = produtoRepository.findAllServicosComBarbearia();
-            List<Map<String, Object>> servicos = resultados.stream()
-                .map(row -> {
-                    // Criar mapa com valores básicos
-                    Map<String, Object> servico = new java.util.HashMap<>();
-                    servico.put("id", row[0]);
-                    servico.put("nome", row[1]);
-                    servico.put("descricao", row[2] != null ? row[2] : "");
-                    servico.put("duracao", row[3]);
-                    servico.put("preco", row[4]);
-                    
-                    // Adicionar URL da imagem se disponível
-                    if (row.length > 5 && row[5] != null) {
-                        servico.put("image_url", row[5]);
-                    } else {
-                        servico.put("image_url", "");
-                    }
-                    
-                    // Adicionar informações da barbearia
-                    if (row.length > 6 && row[6] != null) {
-                        servico.put("barbearia_id", row[6]);
-                    }
-                    if (row.length > 7 && row[7] != null) {
-                        servico.put("barbearia_nome", row[7]);
-                    }
-                    
-                    return servico;
-                })
-                .collect(java.util.stream.Collectors.toList());
-            return ResponseEntity.ok(servicos);
+            return ResponseEntity.ok(produtoRepository.findAllServicosComBarbearia());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(null);
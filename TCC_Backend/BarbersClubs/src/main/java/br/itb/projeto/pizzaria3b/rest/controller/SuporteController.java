@@ -1,6 +1,5 @@
 package br.itb.projeto.pizzaria3b.rest.controller;
 
-import java.time.LocalDateTime;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,9 +11,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import br.itb.projeto.pizzaria3b.model.entity.Cliente;
-import br.itb.projeto.pizzaria3b.model.entity.MensagensChat;
 import br.itb.projeto.pizzaria3b.model.repository.ClienteRepository;
-import br.itb.projeto.pizzaria3b.model.repository.MensagensChatRepository;
+import br.itb.projeto.pizzaria3b.service.ChatService;
+import br.itb.projeto.pizzaria3b.service.EscritaAgrupadaChat;
 
 @RestController
 @RequestMapping("/api/suporte")
@@ -25,7 +24,10 @@ public class SuporteController {
     private ClienteRepository clienteRepository;
     
     @Autowired
-    private MensagensChatRepository mensagemRepository;
+    private ChatService chatService;
+
+    @Autowired
+    private EscritaAgrupadaChat escritaAgrupadaChat;
     
     @PostMapping("/enviar")
     public ResponseEntity<?> enviarMensagem(@RequestBody Map<String, Object> dados) {
@@ -46,16 +48,9 @@ public class SuporteController {
                 return ResponseEntity.badRequest().body("Admin não encontrado");
             }
             
-            // Criar mensagem com assunto
-            MensagensChat mensagemChat = new MensagensChat();
-            mensagemChat.setMensagem("[" + assunto + "] " + mensagem);
-            mensagemChat.setLida(false);
-            mensagemChat.setMensagemBot(false);
-            mensagemChat.setIniciadoEm(LocalDateTime.now());
-            mensagemChat.setRemetente(cliente);
-            mensagemChat.setDestinatario(admin);
-            
-            mensagemRepository.save(mensagemChat);
+            // Criar mensagem com assunto na conversa do cliente com o admin
+            ChatService.Conversa conversa = chatService.abrirConversa(ChatService.CLIENTE, cliente.getId());
+            escritaAgrupadaChat.enviar(conversa, false, "[" + assunto + "] " + mensagem);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -24,7 +24,9 @@ import br.itb.projeto.pizzaria3b.model.entity.Cliente;
 import br.itb.projeto.pizzaria3b.model.entity.Usuario;
 import br.itb.projeto.pizzaria3b.model.repository.AdminRepository;
 import br.itb.projeto.pizzaria3b.model.repository.BarbeiroRepository;
+import br.itb.projeto.pizzaria3b.service.ChatService;
 import br.itb.projeto.pizzaria3b.service.ClienteService;
+import br.itb.projeto.pizzaria3b.service.TokenSessaoService;
 import br.itb.projeto.pizzaria3b.service.UsuarioService;
 
 @CrossOrigin("*")
@@ -43,6 +45,9 @@ public class UsuarioController {
     
     @Autowired
     private ClienteService clienteService;
+    
+    @Autowired
+    private TokenSessaoService tokenSessaoService;
 
     @GetMapping
     public ResponseEntity<List<Usuario>> findAll() {
@@ -77,7 +82,7 @@ public class UsuarioController {
                 response.put("nome", novoCliente.getNome());
                 response.put("email", novoCliente.getEmail());
                 response.put("tipo", "cliente");
-                response.put("token", "token-" + System.currentTimeMillis());
+                response.put("token", tokenSessaoService.gerar(ChatService.CLIENTE, novoCliente.getId()));
                 
                 return new ResponseEntity<>(response, HttpStatus.CREATED);
             } else {
@@ -106,7 +111,7 @@ public class UsuarioController {
         Usuario cliente = usuarioService.findByEmailAndSenha(email, senha);
         if (cliente != null) {
             Map<String, Object> response = new HashMap<>();
-            response.put("token", "token-" + System.currentTimeMillis());
+            response.put("token", tokenSessaoService.gerar(ChatService.CLIENTE, cliente.getId()));
             response.put("id", cliente.getId());
             response.put("nome", cliente.getNome());
             response.put("email", cliente.getEmail());
@@ -118,7 +123,7 @@ public class UsuarioController {
         Optional<Admin> admin = adminRepository.findByEmail(email);
         if (admin.isPresent() && admin.get().getSenha().equals(senha)) {
             Map<String, Object> response = new HashMap<>();
-            response.put("token", "token-" + System.currentTimeMillis());
+            response.put("token", tokenSessaoService.gerar(ChatService.ADMIN, admin.get().getId()));
             response.put("id", admin.get().getId());
             response.put("nome", admin.get().getNome());
             response.put("email", admin.get().getEmail());
@@ -130,7 +135,7 @@ public class UsuarioController {
         Optional<Barbeiro> barbeiro = barbeiroRepository.findByEmail(email);
         if (barbeiro.isPresent() && barbeiro.get().getSenha().equals(senha)) {
             Map<String, Object> response = new HashMap<>();
-            response.put("token", "token-" + System.currentTimeMillis());
+            response.put("token", tokenSessaoService.gerar(ChatService.BARBEIRO, barbeiro.get().getId()));
             response.put("id", barbeiro.get().getId());
             response.put("nome", barbeiro.get().getNome());
             response.put("email", barbeiro.get().getEmail());
@@ -0,0 +1,14 @@
+package br.itb.projeto.pizzaria3b.rest.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class HorarioOcupadoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public HorarioOcupadoException(String message) {
+        super(message);
+    }
+}
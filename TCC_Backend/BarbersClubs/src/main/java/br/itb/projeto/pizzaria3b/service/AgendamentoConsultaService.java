@@ -0,0 +1,121 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Consulta paginada de agendamentos com filtros opcionais.
+ *
+ * Usa paginação por chave (dataAgendamento, id) em vez de OFFSET: cada página
+ * continua a partir do último item da anterior, então o custo não cresce com
+ * a profundidade da rolagem. Os índices de apoio estão em
+ * TCC_BANCO/indices_consulta_agendamento.sql.
+ *
+ * Só entra o arquivo (AgendamentoArquivo) quando o período filtrado chega
+ * antes do horizonte de arquivamento.
+ */
+@Service
+public class AgendamentoConsultaService {
+
+	public static final int LIMITE_PADRAO = 20;
+	public static final int LIMITE_MAXIMO = 100;
+
+	public record Filtro(String status, Long barbeariaId, Long barbeiroId, Long servicoId, Long usuarioId,
+			LocalDateTime de, LocalDateTime ate) {
+	}
+
+	public record Cursor(LocalDateTime dataAgendamento, Long id) {
+	}
+
+	public record Pagina(List<Map<String, Object>> itens, Cursor proximo) {
+	}
+
+	private JdbcTemplate jdbcTemplate;
+	private ArquivoAgendamentoService arquivoAgendamentoService;
+
+	public AgendamentoConsultaService(JdbcTemplate jdbcTemplate, ArquivoAgendamentoService arquivoAgendamentoService) {
+		super();
+		this.jdbcTemplate = jdbcTemplate;
+		this.arquivoAgendamentoService = arquivoAgendamentoService;
+	}
+
+	public Pagina buscar(Filtro filtro, Cursor depoisDe, int limite) {
+		int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+
+		StringBuilder sql = new StringBuilder(
+				"SELECT TOP (?) a.id, a.dataAgendamento, a.statusAgendamento, " +
+				"c.nome as clienteNome, s.nome as servicoNome, b.nome as barbeiroNome, " +
+				"a.barbeiro_id, a.usuario_id " +
+				"FROM " + arquivoAgendamentoService.origem(filtro.de(), filtro.ate()) + " a " +
+				"JOIN Cliente c ON a.cliente_id = c.id " +
+				"JOIN Servico s ON a.servico_id = s.id " +
+				"JOIN Barbeiro b ON a.barbeiro_id = b.id " +
+				"WHERE 1 = 1");
+		List<Object> parametros = new ArrayList<>();
+		// Busca um item a mais para saber se existe próxima página
+		parametros.add(tamanho + 1);
+
+		if (filtro.status() != null) {
+			sql.append(" AND a.statusAgendamento = ?");
+			parametros.add(filtro.status());
+		}
+		if (filtro.barbeariaId() != null) {
+			sql.append(" AND b.barbearia_id = ?");
+			parametros.add(filtro.barbeariaId());
+		}
+		if (filtro.barbeiroId() != null) {
+			sql.append(" AND a.barbeiro_id = ?");
+			parametros.add(filtro.barbeiroId());
+		}
+		if (filtro.servicoId() != null) {
+			sql.append(" AND a.servico_id = ?");
+			parametros.add(filtro.servicoId());
+		}
+		if (filtro.usuarioId() != null) {
+			sql.append(" AND a.usuario_id = ?");
+			parametros.add(filtro.usuarioId());
+		}
+		if (filtro.de() != null) {
+			sql.append(" AND a.dataAgendamento >= ?");
+			parametros.add(filtro.de());
+		}
+		if (filtro.ate() != null) {
+			sql.append(" AND a.dataAgendamento < ?");
+			parametros.add(filtro.ate());
+		}
+		if (depoisDe != null) {
+			sql.append(" AND (a.dataAgendamento < ? OR (a.dataAgendamento = ? AND a.id < ?))");
+			parametros.add(depoisDe.dataAgendamento());
+			parametros.add(depoisDe.dataAgendamento());
+			parametros.add(depoisDe.id());
+		}
+		sql.append(" ORDER BY a.dataAgendamento DESC, a.id DESC");
+
+		List<Map<String, Object>> itens = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+			Map<String, Object> agendamento = new LinkedHashMap<>();
+			agendamento.put("id", rs.getLong("id"));
+			agendamento.put("dataAgendamento", rs.getObject("dataAgendamento", LocalDateTime.class));
+			agendamento.put("statusAgendamento", rs.getString("statusAgendamento"));
+			agendamento.put("clienteNome", rs.getString("clienteNome"));
+			agendamento.put("servicoNome", rs.getString("servicoNome"));
+			agendamento.put("barbeiroNome", rs.getString("barbeiroNome"));
+			agendamento.put("barbeiro_id", rs.getLong("barbeiro_id"));
+			agendamento.put("usuario_id", rs.getObject("usuario_id"));
+			return agendamento;
+		}, parametros.toArray());
+
+		Cursor proximo = null;
+		if (itens.size() > tamanho) {
+			itens = itens.subList(0, tamanho);
+			Map<String, Object> ultimo = itens.get(tamanho - 1);
+			proximo = new Cursor((LocalDateTime) ultimo.get("dataAgendamento"), (Long) ultimo.get("id"));
+		}
+		return new Pagina(itens, proximo);
+	}
+}
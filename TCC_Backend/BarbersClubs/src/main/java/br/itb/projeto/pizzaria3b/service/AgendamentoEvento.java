@@ -0,0 +1,8 @@
+package br.itb.projeto.pizzaria3b.service;
+
+/**
+ * Publicado pelo AgendamentoService depois que um agendamento é criado
+ * (status "Pendente") ou muda de status.
+ */
+public record AgendamentoEvento(Long agendamentoId, Long barbeiroId, String status) {
+}
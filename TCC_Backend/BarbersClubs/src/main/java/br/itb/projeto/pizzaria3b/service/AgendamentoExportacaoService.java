@@ -0,0 +1,149 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Exportação de agendamentos (com cliente, serviço e barbeiro) escrita direto
+ * na resposta, linha a linha, enquanto o cursor do banco avança.
+ *
+ * Nenhuma lista é montada em memória: o ResultSet é forward-only, lido em
+ * blocos de TAMANHO_BLOCO linhas, e cada linha vira uma linha de NDJSON ou CSV.
+ */
+@Service
+public class AgendamentoExportacaoService {
+
+	private static final int TAMANHO_BLOCO = 500;
+	private static final String[] COLUNAS = {
+			"id", "dataAgendamento", "statusAgendamento", "clienteNome",
+			"servicoNome", "barbeiroNome", "barbeiro_id", "usuario_id" };
+
+	private JdbcTemplate jdbcTemplate;
+	private ObjectMapper objectMapper;
+	private ArquivoAgendamentoService arquivoAgendamentoService;
+
+	public AgendamentoExportacaoService(DataSource dataSource, ObjectMapper objectMapper,
+			ArquivoAgendamentoService arquivoAgendamentoService) {
+		super();
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.objectMapper = objectMapper;
+		this.arquivoAgendamentoService = arquivoAgendamentoService;
+	}
+
+	public void exportarNdjson(LocalDate de, LocalDate ate, OutputStream saida) throws IOException {
+		try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)) {
+			// A saída é a resposta HTTP; quem fecha é o Spring
+			gerador.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+			gerador.setRootValueSeparator(new SerializedString("\n"));
+			percorrer(de, ate, rs -> {
+				try {
+					gerador.writeStartObject();
+					gerador.writeNumberField(COLUNAS[0], rs.getLong("id"));
+					gerador.writeStringField(COLUNAS[1], String.valueOf(rs.getObject("dataAgendamento", LocalDateTime.class)));
+					gerador.writeStringField(COLUNAS[2], rs.getString("statusAgendamento"));
+					gerador.writeStringField(COLUNAS[3], rs.getString("clienteNome"));
+					gerador.writeStringField(COLUNAS[4], rs.getString("servicoNome"));
+					gerador.writeStringField(COLUNAS[5], rs.getString("barbeiroNome"));
+					gerador.writeNumberField(COLUNAS[6], rs.getLong("barbeiro_id"));
+					gerador.writeObjectField(COLUNAS[7], rs.getObject("usuario_id"));
+					gerador.writeEndObject();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			gerador.writeRaw('\n');
+		}
+	}
+
+	public void exportarCsv(LocalDate de, LocalDate ate, OutputStream saida) throws IOException {
+		Writer escritor = new OutputStreamWriter(saida, StandardCharsets.UTF_8);
+		escritor.write(String.join(";", COLUNAS));
+		escritor.write("\r\n");
+		percorrer(de, ate, rs -> {
+			try {
+				escritor.write(rs.getLong("id") + ";");
+				escritor.write(rs.getObject("dataAgendamento", LocalDateTime.class) + ";");
+				escritor.write(csv(rs.getString("statusAgendamento")) + ";");
+				escritor.write(csv(rs.getString("clienteNome")) + ";");
+				escritor.write(csv(rs.getString("servicoNome")) + ";");
+				escritor.write(csv(rs.getString("barbeiroNome")) + ";");
+				escritor.write(rs.getLong("barbeiro_id") + ";");
+				Object usuarioId = rs.getObject("usuario_id");
+				escritor.write(usuarioId != null ? usuarioId.toString() : "");
+				escritor.write("\r\n");
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		escritor.flush();
+	}
+
+	private interface LinhaHandler {
+		void processar(ResultSet rs) throws SQLException;
+	}
+
+	private void percorrer(LocalDate de, LocalDate ate, LinhaHandler handler) {
+		LocalDateTime inicio = de != null ? de.atStartOfDay() : null;
+		LocalDateTime fim = ate != null ? ate.plusDays(1).atStartOfDay() : null;
+		StringBuilder sql = new StringBuilder(
+				"SELECT a.id, a.dataAgendamento, a.statusAgendamento, " +
+				"c.nome as clienteNome, s.nome as servicoNome, b.nome as barbeiroNome, " +
+				"a.barbeiro_id, a.usuario_id " +
+				"FROM " + arquivoAgendamentoService.origem(inicio, fim) + " a " +
+				"JOIN Cliente c ON a.cliente_id = c.id " +
+				"JOIN Servico s ON a.servico_id = s.id " +
+				"JOIN Barbeiro b ON a.barbeiro_id = b.id " +
+				"WHERE 1 = 1");
+		List<Object> parametros = new ArrayList<>();
+		if (inicio != null) {
+			sql.append(" AND a.dataAgendamento >= ?");
+			parametros.add(inicio);
+		}
+		if (fim != null) {
+			sql.append(" AND a.dataAgendamento < ?");
+			parametros.add(fim);
+		}
+		sql.append(" ORDER BY a.dataAgendamento, a.id");
+
+		jdbcTemplate.query(conexao -> {
+			PreparedStatement ps = conexao.prepareStatement(sql.toString(),
+					ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(TAMANHO_BLOCO);
+			for (int i = 0; i < parametros.size(); i++) {
+				ps.setObject(i + 1, parametros.get(i));
+			}
+			return ps;
+		}, (ResultSet rs) -> handler.processar(rs));
+	}
+
+	// Aspas em volta quando o valor tem separador, aspas ou quebra de linha
+	private static String csv(String valor) {
+		if (valor == null) {
+			return "";
+		}
+		if (valor.contains(";") || valor.contains("\"") || valor.contains("\n") || valor.contains("\r")) {
+			return "\"" + valor.replace("\"", "\"\"") + "\"";
+		}
+		return valor;
+	}
+}
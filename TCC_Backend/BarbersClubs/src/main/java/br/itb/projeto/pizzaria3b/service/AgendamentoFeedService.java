@@ -0,0 +1,133 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Feed de mudanças de agendamento por Server-Sent Events, por barbeiro e por
+ * barbearia, para as telas não precisarem ficar consultando as listas.
+ *
+ * A mesma thread do envio manda um comentário vazio a cada 25 segundos para
+ * proxies não derrubarem a conexão parada e para achar clientes que já saíram.
+ */
+@Service
+public class AgendamentoFeedService {
+
+	private static final Logger log = LoggerFactory.getLogger(AgendamentoFeedService.class);
+
+	private static final long TIMEOUT_MS = 30 * 60 * 1000;
+	private static final long HEARTBEAT_SEGUNDOS = 25;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private final Map<Long, List<SseEmitter>> porBarbeiro = new ConcurrentHashMap<>();
+	private final Map<Long, List<SseEmitter>> porBarbearia = new ConcurrentHashMap<>();
+	// Envio fora da thread da requisição que alterou o agendamento
+	private final ScheduledExecutorService envio = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+		Thread thread = new Thread(tarefa, "feed-agendamentos");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public AgendamentoFeedService(JdbcTemplate jdbcTemplate) {
+		super();
+		this.jdbcTemplate = jdbcTemplate;
+		envio.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_SEGUNDOS, HEARTBEAT_SEGUNDOS, TimeUnit.SECONDS);
+	}
+
+	public SseEmitter assinarBarbeiro(Long barbeiroId) {
+		return assinar(porBarbeiro, barbeiroId);
+	}
+
+	public SseEmitter assinarBarbearia(Long barbeariaId) {
+		return assinar(porBarbearia, barbeariaId);
+	}
+
+	@EventListener
+	public void aoAlterarAgendamento(AgendamentoEvento evento) {
+		if (evento.barbeiroId() == null) {
+			return;
+		}
+		envio.execute(() -> {
+			enviar(porBarbeiro.get(evento.barbeiroId()), evento);
+			if (!porBarbearia.isEmpty()) {
+				Long barbeariaId = barbearia(evento.barbeiroId());
+				if (barbeariaId != null) {
+					enviar(porBarbearia.get(barbeariaId), evento);
+				}
+			}
+		});
+	}
+
+	private SseEmitter assinar(Map<Long, List<SseEmitter>> assinantes, Long chave) {
+		SseEmitter emitter = new SseEmitter(TIMEOUT_MS);
+		List<SseEmitter> lista = assinantes.computeIfAbsent(chave, k -> new CopyOnWriteArrayList<>());
+		lista.add(emitter);
+		Runnable remover = () -> lista.remove(emitter);
+		emitter.onCompletion(remover);
+		emitter.onTimeout(remover);
+		emitter.onError(erro -> remover.run());
+		return emitter;
+	}
+
+	private void enviar(List<SseEmitter> emitters, AgendamentoEvento evento) {
+		if (emitters == null) {
+			return;
+		}
+		for (SseEmitter emitter : emitters) {
+			enviar(emitter, SseEmitter.event().name("agendamento").data(evento));
+		}
+	}
+
+	private void heartbeat() {
+		// Uma exceção aqui cancelaria as próximas execuções agendadas
+		try {
+			for (Map<Long, List<SseEmitter>> assinantes : List.of(porBarbeiro, porBarbearia)) {
+				for (List<SseEmitter> emitters : assinantes.values()) {
+					for (SseEmitter emitter : emitters) {
+						enviar(emitter, SseEmitter.event().comment(""));
+					}
+				}
+			}
+		} catch (Exception e) {
+			log.error("Erro no heartbeat do feed de agendamentos", e);
+		}
+	}
+
+	private void enviar(SseEmitter emitter, SseEmitter.SseEventBuilder evento) {
+		try {
+			emitter.send(evento);
+		} catch (IOException | IllegalStateException e) {
+			// Cliente desconectou; o callback de conclusão tira da lista
+			emitter.completeWithError(e);
+		}
+	}
+
+	// Consulta só quando alguém acompanha alguma barbearia; o barbeiro pode trocar de barbearia
+	private Long barbearia(Long barbeiroId) {
+		List<Long> resultado = jdbcTemplate.queryForList(
+				"SELECT CAST(barbearia_id AS BIGINT) FROM Barbeiro WHERE id = ? AND barbearia_id IS NOT NULL",
+				Long.class, barbeiroId);
+		return resultado.isEmpty() ? null : resultado.get(0);
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		envio.shutdownNow();
+	}
+}
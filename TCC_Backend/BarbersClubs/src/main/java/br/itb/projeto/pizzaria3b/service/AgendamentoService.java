@@ -0,0 +1,544 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.itb.projeto.pizzaria3b.model.entity.Barbeiro;
+import br.itb.projeto.pizzaria3b.model.projection.IntervaloAgendamento;
+import br.itb.projeto.pizzaria3b.model.repository.AgendamentoRepository;
+import br.itb.projeto.pizzaria3b.model.repository.BarbeiroRepository;
+import br.itb.projeto.pizzaria3b.rest.exception.HorarioOcupadoException;
+import br.itb.projeto.pizzaria3b.rest.exception.ResourceNotFoundException;
+
+@Service
+public class AgendamentoService {
+
+	private static final Logger log = LoggerFactory.getLogger(AgendamentoService.class);
+
+	public static final int DURACAO_PADRAO = 30;
+	private static final int NUMERO_TRAVAS = 64;
+	private static final int MAXIMO_DIAS_DISPONIBILIDADE = 31;
+	private static final long VALIDADE_EXPEDIENTE_MS = 5 * 60 * 1000;
+	private static final LocalTime INICIO_EXPEDIENTE_PADRAO = LocalTime.of(9, 0);
+	private static final LocalTime FIM_EXPEDIENTE_PADRAO = LocalTime.of(18, 0);
+
+	// Estados de origem aceitos para cada estado de destino nas transições em lote
+	private static final Map<String, List<String>> ORIGENS_VALIDAS = Map.of(
+			"Confirmado", List.of("Pendente"),
+			"Completo", List.of("Pendente", "Confirmado"),
+			"Cancelado", List.of("Pendente", "Confirmado"));
+	// SQL Server aceita no máximo 2100 parâmetros por comando
+	private static final int TAMANHO_LOTE = 1000;
+	private static final int MAXIMO_SERVICOS_COMBO = 5;
+
+	public record ResultadoStatus(Long id, String status, boolean sucesso, String motivo) {
+	}
+
+	private record Expediente(LocalTime inicio, LocalTime fim, long carregadoEm) {
+	}
+
+	private AgendamentoRepository agendamentoRepository;
+	private BarbeiroRepository barbeiroRepository;
+	private JdbcTemplate jdbcTemplate;
+	private IndiceOcupacao indiceOcupacao;
+	private ReservasHorario reservasHorario;
+	private ApplicationEventPublisher eventPublisher;
+	private TransactionTemplate transacao;
+
+	// Servico.duracao quase nunca muda, então fica em cache para não consultar a cada agendamento
+	private final Map<Long, Integer> duracaoPorServico = new ConcurrentHashMap<>();
+	private final Map<Long, Expediente> expedientePorBarbeiro = new ConcurrentHashMap<>();
+
+	// Travas por faixa de barbeiro: reservas do mesmo barbeiro são serializadas,
+	// barbeiros diferentes quase sempre caem em travas diferentes
+	private final ReentrantLock[] travas = new ReentrantLock[NUMERO_TRAVAS];
+
+	public AgendamentoService(AgendamentoRepository agendamentoRepository, BarbeiroRepository barbeiroRepository,
+			JdbcTemplate jdbcTemplate, IndiceOcupacao indiceOcupacao, ReservasHorario reservasHorario,
+			ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+		super();
+		this.agendamentoRepository = agendamentoRepository;
+		this.barbeiroRepository = barbeiroRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.indiceOcupacao = indiceOcupacao;
+		this.reservasHorario = reservasHorario;
+		this.eventPublisher = eventPublisher;
+		this.transacao = new TransactionTemplate(transactionManager);
+		for (int i = 0; i < travas.length; i++) {
+			travas[i] = new ReentrantLock();
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void carregarIndiceOcupacao() {
+		try {
+			int total = indiceOcupacao.carregar(() -> {
+				List<IntervaloAgendamento> resultados = agendamentoRepository
+						.findAgendamentosAtivosAPartirDe(LocalDate.now().minusDays(1).atStartOfDay());
+				List<IndiceOcupacao.Intervalo> intervalos = new ArrayList<>(resultados.size());
+				for (IntervaloAgendamento agendamento : resultados) {
+					int duracao = agendamento.getDuracao() != null ? agendamento.getDuracao() : DURACAO_PADRAO;
+					intervalos.add(new IndiceOcupacao.Intervalo(
+							agendamento.getId(),
+							agendamento.getBarbeiroId(),
+							agendamento.getDataAgendamento(),
+							agendamento.getDataAgendamento().plusMinutes(duracao)));
+				}
+				return intervalos;
+			});
+			log.info("Índice de ocupação carregado com {} agendamentos", total);
+		} catch (Exception e) {
+			log.error("Erro ao carregar índice de ocupação", e);
+		}
+	}
+
+	public int duracaoServico(Long servicoId) {
+		Integer duracao = duracaoPorServico.get(servicoId);
+		if (duracao == null) {
+			duracao = agendamentoRepository.findDuracaoServico(servicoId);
+			if (duracao == null) {
+				return DURACAO_PADRAO;
+			}
+			duracaoPorServico.put(servicoId, duracao);
+		}
+		return duracao;
+	}
+
+	public boolean horarioOcupado(Long barbeiroId, LocalDateTime inicio, LocalDateTime fim) {
+		if (indiceOcupacao.isCarregado()) {
+			return indiceOcupacao.conflita(barbeiroId, inicio, fim);
+		}
+		// Índice ainda não carregado: consulta direto no banco
+		return agendamentoRepository.countConflitosHorario(barbeiroId, inicio, fim) > 0;
+	}
+
+	public Long criar(Long servicoId, Long barbeiroId, LocalDateTime inicio, Long usuarioId) {
+		LocalDateTime fim = inicio.plusMinutes(duracaoServico(servicoId));
+
+		Long id;
+		ReentrantLock trava = trava(barbeiroId);
+		trava.lock();
+		try {
+			if (horarioOcupado(barbeiroId, inicio, fim)) {
+				throw new HorarioOcupadoException("Este horário já está ocupado");
+			}
+			if (reservasHorario.conflita(barbeiroId, inicio, fim, usuarioId)) {
+				throw new HorarioOcupadoException("Este horário está reservado por outro cliente");
+			}
+
+			// O banco repete a verificação no insert, cobrindo outras instâncias da aplicação
+			try {
+				id = agendamentoRepository.criarAgendamento(servicoId, barbeiroId, inicio, fim, usuarioId);
+			} catch (DataIntegrityViolationException e) {
+				id = null;
+			}
+			if (id == null) {
+				throw new HorarioOcupadoException("Este horário já está ocupado");
+			}
+
+			indiceOcupacao.adicionar(new IndiceOcupacao.Intervalo(id, barbeiroId, inicio, fim));
+			reservasHorario.consumir(barbeiroId, usuarioId);
+		} finally {
+			trava.unlock();
+		}
+		eventPublisher.publishEvent(new AgendamentoEvento(id, barbeiroId, "Pendente"));
+		return id;
+	}
+
+	/**
+	 * Agenda vários serviços em sequência com o mesmo barbeiro, cada um começando
+	 * quando o anterior termina. Ou todos são gravados, num único INSERT dentro
+	 * de uma transação, ou nenhum. Devolve os ids na ordem dos serviços.
+	 */
+	public List<Long> criarCombo(List<Long> servicoIds, Long barbeiroId, LocalDateTime inicio, Long usuarioId) {
+		if (servicoIds.isEmpty() || servicoIds.size() > MAXIMO_SERVICOS_COMBO) {
+			throw new IllegalArgumentException("Informe de 1 a " + MAXIMO_SERVICOS_COMBO + " serviços");
+		}
+		List<IndiceOcupacao.Intervalo> horarios = new ArrayList<>(servicoIds.size());
+		LocalDateTime fim = inicio;
+		for (Long servicoId : servicoIds) {
+			int duracao = duracaoServico(servicoId);
+			if (duracao <= 0) {
+				throw new IllegalArgumentException("Serviço " + servicoId + " está sem duração cadastrada");
+			}
+			LocalDateTime inicioServico = fim;
+			fim = inicioServico.plusMinutes(duracao);
+			horarios.add(new IndiceOcupacao.Intervalo(null, barbeiroId, inicioServico, fim));
+		}
+
+		// Os serviços são consecutivos, então basta um intervalo contínuo livre
+		String sql = "INSERT INTO Agendamento (servico_id, barbeiro_id, dataAgendamento, statusAgendamento, cliente_id, usuario_id) " +
+				"OUTPUT CAST(INSERTED.id AS BIGINT) AS id, CAST(INSERTED.servico_id AS BIGINT) AS servico_id, INSERTED.dataAgendamento " +
+				"SELECT v.servico_id, ?, v.dataAgendamento, 'Pendente', 1, ? " +
+				"FROM (VALUES " + String.join(", ", Collections.nCopies(servicoIds.size(), "(?, ?)")) + ") " +
+				"AS v(servico_id, dataAgendamento) " +
+				"WHERE NOT EXISTS (" +
+				"SELECT 1 FROM Agendamento a WITH (UPDLOCK, HOLDLOCK) " +
+				"JOIN Servico s ON a.servico_id = s.id " +
+				"WHERE a.barbeiro_id = ? " +
+				"AND a.statusAgendamento IN ('Pendente', 'Confirmado') " +
+				"AND a.dataAgendamento < ? " +
+				"AND DATEADD(MINUTE, s.duracao, a.dataAgendamento) > ?)";
+		List<Object> parametros = new ArrayList<>();
+		parametros.add(barbeiroId);
+		parametros.add(usuarioId);
+		for (int i = 0; i < servicoIds.size(); i++) {
+			parametros.add(servicoIds.get(i));
+			parametros.add(horarios.get(i).inicio());
+		}
+		parametros.add(barbeiroId);
+		parametros.add(fim);
+		parametros.add(inicio);
+
+		List<Long> ids;
+		ReentrantLock trava = trava(barbeiroId);
+		trava.lock();
+		try {
+			if (horarioOcupado(barbeiroId, inicio, fim)) {
+				throw new HorarioOcupadoException("Um dos horários já está ocupado");
+			}
+			if (reservasHorario.conflita(barbeiroId, inicio, fim, usuarioId)) {
+				throw new HorarioOcupadoException("Um dos horários está reservado por outro cliente");
+			}
+
+			try {
+				// Se alguma linha não voltar no OUTPUT, a exceção desfaz o INSERT inteiro
+				ids = transacao.execute(status -> {
+					List<Long> gravados = new ArrayList<>(Collections.nCopies(horarios.size(), null));
+					jdbcTemplate.query(sql, rs -> {
+						associar(gravados, servicoIds, horarios, rs.getLong("servico_id"),
+								rs.getObject("dataAgendamento", LocalDateTime.class), rs.getLong("id"));
+					}, parametros.toArray());
+					if (gravados.contains(null)) {
+						throw new HorarioOcupadoException("Um dos horários já está ocupado");
+					}
+					return gravados;
+				});
+			} catch (DataIntegrityViolationException e) {
+				throw new HorarioOcupadoException("Um dos horários já está ocupado");
+			}
+
+			for (int i = 0; i < horarios.size(); i++) {
+				IndiceOcupacao.Intervalo horario = horarios.get(i);
+				indiceOcupacao.adicionar(new IndiceOcupacao.Intervalo(ids.get(i),
+						barbeiroId, horario.inicio(), horario.fim()));
+			}
+			reservasHorario.consumir(barbeiroId, usuarioId);
+		} finally {
+			trava.unlock();
+		}
+
+		for (Long id : ids) {
+			eventPublisher.publishEvent(new AgendamentoEvento(id, barbeiroId, "Pendente"));
+		}
+		return ids;
+	}
+
+	// OUTPUT não garante a ordem das linhas; serviço e início identificam cada item do combo
+	static void associar(List<Long> gravados, List<Long> servicoIds, List<IndiceOcupacao.Intervalo> horarios,
+			long servicoId, LocalDateTime dataAgendamento, long id) {
+		for (int i = 0; i < horarios.size(); i++) {
+			if (gravados.get(i) == null && servicoIds.get(i) == servicoId
+					&& horarios.get(i).inicio().equals(dataAgendamento)) {
+				gravados.set(i, id);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Move um agendamento Pendente/Confirmado para outro horário (e, opcionalmente,
+	 * outro barbeiro) mantendo o mesmo id. O horário antigo só é liberado se o
+	 * novo for gravado; se o novo estiver ocupado, nada muda.
+	 */
+	public void reagendar(Long agendamentoId, LocalDateTime inicio, Long novoBarbeiroId) {
+		List<Map<String, Object>> linhas = jdbcTemplate.queryForList(
+				"SELECT CAST(barbeiro_id AS BIGINT) AS barbeiro_id, CAST(servico_id AS BIGINT) AS servico_id, " +
+				"CAST(usuario_id AS BIGINT) AS usuario_id, statusAgendamento FROM Agendamento WHERE id = ?",
+				agendamentoId);
+		if (linhas.isEmpty()) {
+			throw new ResourceNotFoundException("Agendamento não encontrado");
+		}
+		Map<String, Object> atual = linhas.get(0);
+		String status = (String) atual.get("statusAgendamento");
+		if (!ocupaHorario(status)) {
+			throw new IllegalStateException("Não é possível reagendar um agendamento " + status);
+		}
+		Long barbeiroAnterior = (Long) atual.get("barbeiro_id");
+		Long barbeiroId = novoBarbeiroId != null ? novoBarbeiroId : barbeiroAnterior;
+		Long usuarioId = (Long) atual.get("usuario_id");
+		LocalDateTime fim = inicio.plusMinutes(duracaoServico((Long) atual.get("servico_id")));
+
+		// Troca de barbeiro envolve duas travas, sempre pegas na mesma ordem
+		int primeira = indiceTrava(barbeiroAnterior);
+		int segunda = indiceTrava(barbeiroId);
+		travas[Math.min(primeira, segunda)].lock();
+		travas[Math.max(primeira, segunda)].lock();
+		try {
+			if (indiceOcupacao.isCarregado() && indiceOcupacao.conflita(barbeiroId, inicio, fim, agendamentoId)) {
+				throw new HorarioOcupadoException("Este horário já está ocupado");
+			}
+			if (reservasHorario.conflita(barbeiroId, inicio, fim, usuarioId)) {
+				throw new HorarioOcupadoException("Este horário está reservado por outro cliente");
+			}
+
+			Long id;
+			try {
+				id = agendamentoRepository.reagendarAgendamento(agendamentoId, barbeiroId, inicio, fim);
+			} catch (DataIntegrityViolationException e) {
+				id = null;
+			}
+			if (id == null) {
+				throw new HorarioOcupadoException("Este horário já está ocupado");
+			}
+
+			// adicionar substitui o intervalo antigo do mesmo id
+			indiceOcupacao.adicionar(new IndiceOcupacao.Intervalo(agendamentoId, barbeiroId, inicio, fim));
+		} finally {
+			travas[Math.max(primeira, segunda)].unlock();
+			travas[Math.min(primeira, segunda)].unlock();
+		}
+		if (!barbeiroId.equals(barbeiroAnterior)) {
+			eventPublisher.publishEvent(new AgendamentoEvento(agendamentoId, barbeiroAnterior, status));
+		}
+		eventPublisher.publishEvent(new AgendamentoEvento(agendamentoId, barbeiroId, status));
+	}
+
+	// Segura o horário por alguns minutos sem gravar nada no banco; substitui a reserva
+	// anterior do mesmo cliente com este barbeiro
+	public ReservasHorario.Reserva reservar(Long servicoId, Long barbeiroId, LocalDateTime inicio, Long usuarioId) {
+		LocalDateTime fim = inicio.plusMinutes(duracaoServico(servicoId));
+
+		ReentrantLock trava = trava(barbeiroId);
+		trava.lock();
+		try {
+			if (horarioOcupado(barbeiroId, inicio, fim)) {
+				throw new HorarioOcupadoException("Este horário já está ocupado");
+			}
+			if (reservasHorario.conflita(barbeiroId, inicio, fim, usuarioId)) {
+				throw new HorarioOcupadoException("Este horário está reservado por outro cliente");
+			}
+			return reservasHorario.reservar(barbeiroId, usuarioId, inicio, fim);
+		} finally {
+			trava.unlock();
+		}
+	}
+
+	// Horários de início livres do barbeiro entre as datas, de 'passo' em 'passo' minutos,
+	// calculados só com o mapa de ocupação em memória
+	public List<LocalDateTime> disponibilidade(Long barbeiroId, Long servicoId, LocalDate de, LocalDate ate, int passo) {
+		if (ate.isBefore(de) || ChronoUnit.DAYS.between(de, ate) >= MAXIMO_DIAS_DISPONIBILIDADE) {
+			throw new IllegalArgumentException("Período inválido: informe no máximo " + MAXIMO_DIAS_DISPONIBILIDADE + " dias");
+		}
+		if (!indiceOcupacao.isCarregado()) {
+			carregarIndiceOcupacao();
+			if (!indiceOcupacao.isCarregado()) {
+				throw new IllegalStateException("Agenda indisponível no momento");
+			}
+		}
+
+		Expediente expediente = expediente(barbeiroId);
+		int fatiasServico = fatias(duracaoServico(servicoId));
+		int passoFatias = Math.max(1, fatias(passo));
+		int primeiraFatia = fatias(expediente.inicio().toSecondOfDay() / 60);
+		int limiteFatias = (expediente.fim().toSecondOfDay() / 60) / IndiceOcupacao.MINUTOS_POR_FATIA;
+		LocalDateTime agora = LocalDateTime.now();
+		List<ReservasHorario.Reserva> reservas = reservasHorario.ativas(barbeiroId);
+
+		List<LocalDateTime> horarios = new ArrayList<>();
+		for (LocalDate dia = de; !dia.isAfter(ate); dia = dia.plusDays(1)) {
+			long[] mapa = indiceOcupacao.mapaOcupacao(barbeiroId, dia);
+			for (int fatia = primeiraFatia; fatia + fatiasServico <= limiteFatias; fatia += passoFatias) {
+				LocalDateTime inicio = dia.atStartOfDay().plusMinutes((long) fatia * IndiceOcupacao.MINUTOS_POR_FATIA);
+				if (inicio.isAfter(agora) && IndiceOcupacao.livre(mapa, fatia, fatiasServico)
+						&& !reservado(reservas, inicio, inicio.plusMinutes((long) fatiasServico * IndiceOcupacao.MINUTOS_POR_FATIA))) {
+					horarios.add(inicio);
+				}
+			}
+		}
+		return horarios;
+	}
+
+	private Expediente expediente(Long barbeiroId) {
+		Expediente expediente = expedientePorBarbeiro.get(barbeiroId);
+		if (expediente == null || System.currentTimeMillis() - expediente.carregadoEm() > VALIDADE_EXPEDIENTE_MS) {
+			Barbeiro barbeiro = barbeiroRepository.findById(barbeiroId)
+					.orElseThrow(() -> new ResourceNotFoundException("Barbeiro não encontrado"));
+			expediente = new Expediente(
+					barbeiro.getHorarioInicial() != null ? barbeiro.getHorarioInicial() : INICIO_EXPEDIENTE_PADRAO,
+					barbeiro.getHorarioFinal() != null ? barbeiro.getHorarioFinal() : FIM_EXPEDIENTE_PADRAO,
+					System.currentTimeMillis());
+			expedientePorBarbeiro.put(barbeiroId, expediente);
+		}
+		return expediente;
+	}
+
+	// Poucas reservas por barbeiro ao mesmo tempo, então a busca linear basta
+	private static boolean reservado(List<ReservasHorario.Reserva> reservas, LocalDateTime inicio, LocalDateTime fim) {
+		for (ReservasHorario.Reserva reserva : reservas) {
+			if (reserva.inicio().isBefore(fim) && inicio.isBefore(reserva.fim())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Quantidade de fatias de 5 minutos necessária para cobrir os minutos informados
+	private static int fatias(int minutos) {
+		return (minutos + IndiceOcupacao.MINUTOS_POR_FATIA - 1) / IndiceOcupacao.MINUTOS_POR_FATIA;
+	}
+
+	public void atualizarStatus(Long agendamentoId, String status) {
+		// OUTPUT devolve o barbeiro no mesmo comando, para avisar quem acompanha a agenda dele
+		List<Long> barbeiros = jdbcTemplate.queryForList(
+				"UPDATE Agendamento SET statusAgendamento = ? OUTPUT CAST(INSERTED.barbeiro_id AS BIGINT) WHERE id = ?",
+				Long.class, status, agendamentoId);
+		if (!ocupaHorario(status)) {
+			indiceOcupacao.remover(agendamentoId);
+		}
+		if (!barbeiros.isEmpty()) {
+			eventPublisher.publishEvent(new AgendamentoEvento(agendamentoId, barbeiros.get(0), status));
+		}
+	}
+
+	/**
+	 * Cancela um bloco de até 'tamanho' agendamentos ainda Pendente cujo horário
+	 * é anterior ao limite, num único UPDATE. Devolve quantos foram cancelados.
+	 */
+	public int expirarPendentes(LocalDateTime limite, int tamanho) {
+		Map<Long, Long> expirados = new LinkedHashMap<>();
+		jdbcTemplate.query(
+				"UPDATE TOP (?) Agendamento SET statusAgendamento = 'Cancelado' " +
+				"OUTPUT CAST(INSERTED.id AS BIGINT) AS id, CAST(INSERTED.barbeiro_id AS BIGINT) AS barbeiro_id " +
+				"WHERE statusAgendamento = 'Pendente' AND dataAgendamento < ?",
+				rs -> {
+					expirados.put(rs.getLong("id"), rs.getLong("barbeiro_id"));
+				}, tamanho, limite);
+		for (Map.Entry<Long, Long> expirado : expirados.entrySet()) {
+			indiceOcupacao.remover(expirado.getKey());
+			eventPublisher.publishEvent(new AgendamentoEvento(expirado.getKey(), expirado.getValue(), "Cancelado"));
+		}
+		return expirados.size();
+	}
+
+	// Aplica vários status de uma vez: um UPDATE por status de destino (e por bloco de ids),
+	// que só altera linhas cujo status atual é uma origem válida
+	public List<ResultadoStatus> atualizarStatusEmLote(Map<Long, String> statusPorId) {
+		Map<String, List<Long>> idsPorStatus = new LinkedHashMap<>();
+		Map<Long, ResultadoStatus> resultados = new LinkedHashMap<>();
+		for (Map.Entry<Long, String> item : statusPorId.entrySet()) {
+			if (ORIGENS_VALIDAS.containsKey(item.getValue())) {
+				idsPorStatus.computeIfAbsent(item.getValue(), k -> new ArrayList<>()).add(item.getKey());
+			} else {
+				resultados.put(item.getKey(), new ResultadoStatus(item.getKey(), item.getValue(), false, "Status inválido"));
+			}
+		}
+
+		List<Long> naoAtualizados = new ArrayList<>();
+		for (Map.Entry<String, List<Long>> grupo : idsPorStatus.entrySet()) {
+			String status = grupo.getKey();
+			List<Long> ids = grupo.getValue();
+			for (int inicio = 0; inicio < ids.size(); inicio += TAMANHO_LOTE) {
+				List<Long> bloco = ids.subList(inicio, Math.min(inicio + TAMANHO_LOTE, ids.size()));
+				Map<Long, Long> atualizados = atualizarBloco(bloco, status);
+				for (Map.Entry<Long, Long> atualizado : atualizados.entrySet()) {
+					Long id = atualizado.getKey();
+					resultados.put(id, new ResultadoStatus(id, status, true, null));
+					if (!ocupaHorario(status)) {
+						indiceOcupacao.remover(id);
+					}
+					eventPublisher.publishEvent(new AgendamentoEvento(id, atualizado.getValue(), status));
+				}
+				for (Long id : bloco) {
+					if (!resultados.containsKey(id)) {
+						naoAtualizados.add(id);
+					}
+				}
+			}
+		}
+
+		// Só consulta o banco de novo se algum id não pôde ser alterado, para explicar o motivo
+		Map<Long, String> statusAtual = buscarStatus(naoAtualizados);
+		for (Long id : naoAtualizados) {
+			String atual = statusAtual.get(id);
+			String motivo = atual == null ? "Agendamento não encontrado" : "Transição inválida a partir de " + atual;
+			resultados.put(id, new ResultadoStatus(id, statusPorId.get(id), false, motivo));
+		}
+
+		List<ResultadoStatus> lista = new ArrayList<>(statusPorId.size());
+		for (Long id : statusPorId.keySet()) {
+			lista.add(resultados.get(id));
+		}
+		return lista;
+	}
+
+	// Devolve id -> barbeiro_id das linhas que mudaram
+	private Map<Long, Long> atualizarBloco(List<Long> ids, String status) {
+		List<String> origens = ORIGENS_VALIDAS.get(status);
+		String sql = "UPDATE Agendamento SET statusAgendamento = ? " +
+				"OUTPUT CAST(INSERTED.id AS BIGINT) AS id, CAST(INSERTED.barbeiro_id AS BIGINT) AS barbeiro_id " +
+				"WHERE id IN (" + marcadores(ids.size()) + ") " +
+				"AND statusAgendamento IN (" + marcadores(origens.size()) + ")";
+		List<Object> parametros = new ArrayList<>(ids.size() + origens.size() + 1);
+		parametros.add(status);
+		parametros.addAll(ids);
+		parametros.addAll(origens);
+		Map<Long, Long> atualizados = new LinkedHashMap<>();
+		jdbcTemplate.query(sql, rs -> {
+			atualizados.put(rs.getLong("id"), rs.getLong("barbeiro_id"));
+		}, parametros.toArray());
+		return atualizados;
+	}
+
+	private Map<Long, String> buscarStatus(List<Long> ids) {
+		if (ids.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<Long, String> status = new HashMap<>();
+		for (int inicio = 0; inicio < ids.size(); inicio += TAMANHO_LOTE) {
+			List<Long> bloco = ids.subList(inicio, Math.min(inicio + TAMANHO_LOTE, ids.size()));
+			jdbcTemplate.query("SELECT id, statusAgendamento FROM Agendamento WHERE id IN (" + marcadores(bloco.size()) + ")",
+					rs -> {
+						status.put(rs.getLong("id"), rs.getString("statusAgendamento"));
+					}, bloco.toArray());
+		}
+		return status;
+	}
+
+	private static String marcadores(int quantidade) {
+		return String.join(", ", Collections.nCopies(quantidade, "?"));
+	}
+
+	private ReentrantLock trava(Long barbeiroId) {
+		return travas[indiceTrava(barbeiroId)];
+	}
+
+	private int indiceTrava(Long barbeiroId) {
+		return Math.floorMod(barbeiroId.hashCode(), travas.length);
+	}
+
+	public static boolean ocupaHorario(String status) {
+		return "Pendente".equals(status) || "Confirmado".equals(status);
+	}
+}
@@ -0,0 +1,114 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Separação quente/frio dos agendamentos.
+ *
+ * Agendamentos Completo/Cancelado mais antigos que o horizonte configurado
+ * saem da tabela Agendamento e vão para AgendamentoArquivo
+ * (TCC_BANCO/arquivo_agendamento.sql), em blocos curtos para não segurar
+ * travas na tabela quente. As consultas leem só a tabela quente, a não ser que
+ * o período pedido alcance o arquivo.
+ */
+@Service
+public class ArquivoAgendamentoService {
+
+	private static final Logger log = LoggerFactory.getLogger(ArquivoAgendamentoService.class);
+
+	private static final int TAMANHO_BLOCO = 1000;
+	private static final long PAUSA_ENTRE_BLOCOS_MS = 200;
+	private static final String[] COLUNAS = {
+			"id", "dataAgendamento", "statusAgendamento", "descricao", "criadoEm",
+			"cliente_id", "barbeiro_id", "servico_id", "usuario_id" };
+	private static final String LISTA_COLUNAS = String.join(", ", COLUNAS);
+	private static final String AGENDAMENTOS_COM_ARQUIVO = "(SELECT " + LISTA_COLUNAS + " FROM Agendamento " +
+			"UNION ALL SELECT " + LISTA_COLUNAS + " FROM AgendamentoArquivo)";
+
+	private JdbcTemplate jdbcTemplate;
+	private int horizonteDias;
+
+	private final AtomicBoolean executando = new AtomicBoolean();
+
+	public ArquivoAgendamentoService(JdbcTemplate jdbcTemplate,
+			@Value("${agendamento.arquivo.horizonte-dias:180}") int horizonteDias) {
+		super();
+		this.jdbcTemplate = jdbcTemplate;
+		this.horizonteDias = horizonteDias;
+	}
+
+	// Agendamentos antes deste instante podem estar no arquivo
+	public LocalDateTime limite() {
+		return LocalDate.now().minusDays(horizonteDias).atStartOfDay();
+	}
+
+	public boolean alcancaArquivo(LocalDateTime de, LocalDateTime ate) {
+		LocalDateTime limite = limite();
+		return (de != null && de.isBefore(limite)) || (ate != null && !ate.isAfter(limite));
+	}
+
+	/**
+	 * Origem para o FROM de uma consulta sobre o período [de, ate): a tabela
+	 * quente, ou a união com o arquivo quando o período chega antes do limite.
+	 */
+	public String origem(LocalDateTime de, LocalDateTime ate) {
+		return alcancaArquivo(de, ate) ? AGENDAMENTOS_COM_ARQUIVO : "Agendamento";
+	}
+
+	/**
+	 * Move os agendamentos encerrados antes do limite, um bloco por comando.
+	 * Cada DELETE ... OUTPUT INTO é atômico: a linha sai de uma tabela e entra
+	 * na outra na mesma instrução.
+	 */
+	@Scheduled(cron = "${agendamento.arquivo.cron:0 30 3 * * *}")
+	public int arquivar() {
+		if (!executando.compareAndSet(false, true)) {
+			return 0;
+		}
+		try {
+			String colunasRemovidas = Arrays.stream(COLUNAS)
+					.map(coluna -> "DELETED." + coluna)
+					.collect(Collectors.joining(", "));
+			String sql = "DELETE TOP (?) FROM Agendamento " +
+					"OUTPUT " + colunasRemovidas + " INTO AgendamentoArquivo (" + LISTA_COLUNAS + ") " +
+					"WHERE statusAgendamento IN ('Completo', 'Cancelado') AND dataAgendamento < ?";
+
+			LocalDateTime limite = limite();
+			int total = 0;
+			int movidas;
+			do {
+				movidas = jdbcTemplate.update(sql, TAMANHO_BLOCO, limite);
+				total += movidas;
+			} while (movidas == TAMANHO_BLOCO && pausar());
+			log.info("Arquivamento de agendamentos: {} movidos para AgendamentoArquivo", total);
+			return total;
+		} catch (RuntimeException e) {
+			log.error("Erro ao arquivar agendamentos", e);
+			throw e;
+		} finally {
+			executando.set(false);
+		}
+	}
+
+	// Deixa as requisições do app passarem entre um bloco e outro
+	private boolean pausar() {
+		try {
+			Thread.sleep(PAUSA_ENTRE_BLOCOS_MS);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
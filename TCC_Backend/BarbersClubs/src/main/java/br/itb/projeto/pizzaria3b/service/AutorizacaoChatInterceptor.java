@@ -0,0 +1,78 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.util.Map;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import br.itb.projeto.pizzaria3b.service.TokenSessaoService.Sessao;
+
+/**
+ * Controle de acesso do WebSocket do chat.
+ *
+ * O CONNECT precisa trazer o token do login no cabeçalho Authorization. Com
+ * ele, o admin pode assinar /topic/chat/admin e qualquer conversa; clientes e
+ * barbeiros só a própria, /topic/chat/{tipo}/{id}. Ninguém publica direto nos
+ * tópicos: as mensagens entram pelo POST /api/chat/send.
+ */
+@Component
+public class AutorizacaoChatInterceptor implements ChannelInterceptor {
+
+	private static final String SESSAO = "sessao";
+
+	private TokenSessaoService tokenSessaoService;
+
+	public AutorizacaoChatInterceptor(TokenSessaoService tokenSessaoService) {
+		super();
+		this.tokenSessaoService = tokenSessaoService;
+	}
+
+	@Override
+	public Message<?> preSend(Message<?> message, MessageChannel channel) {
+		StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+		if (accessor == null || accessor.getCommand() == null) {
+			return message;
+		}
+		Map<String, Object> atributos = accessor.getSessionAttributes();
+		switch (accessor.getCommand()) {
+		case CONNECT -> {
+			Sessao sessao = tokenSessaoService.validar(accessor.getFirstNativeHeader("Authorization"));
+			if (sessao == null || atributos == null) {
+				throw new MessageDeliveryException("Token inválido");
+			}
+			atributos.put(SESSAO, sessao);
+		}
+		case SUBSCRIBE -> {
+			Sessao sessao = atributos != null ? (Sessao) atributos.get(SESSAO) : null;
+			if (!podeAssinar(sessao, accessor.getDestination())) {
+				throw new MessageDeliveryException("Assinatura não permitida: " + accessor.getDestination());
+			}
+		}
+		case SEND -> throw new MessageDeliveryException("Envie mensagens por /api/chat/send");
+		default -> {
+		}
+		}
+		return message;
+	}
+
+	static boolean podeAssinar(Sessao sessao, String destino) {
+		if (sessao == null || destino == null || !destino.startsWith(ChatPushService.TOPICO)) {
+			return false;
+		}
+		String resto = destino.substring(ChatPushService.TOPICO.length());
+		if (resto.equals(ChatService.ADMIN)) {
+			return sessao.isAdmin();
+		}
+		String[] partes = resto.split("/");
+		if (partes.length != 2 || !(ChatService.CLIENTE.equals(partes[0]) || ChatService.BARBEIRO.equals(partes[0]))) {
+			return false;
+		}
+		return sessao.isAdmin()
+				|| (sessao.tipo().equals(partes[0]) && String.valueOf(sessao.id()).equals(partes[1]));
+	}
+}
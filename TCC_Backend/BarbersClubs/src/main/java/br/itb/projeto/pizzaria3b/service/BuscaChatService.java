@@ -0,0 +1,143 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import br.itb.projeto.pizzaria3b.service.IndiceBuscaChat.Documento;
+import br.itb.projeto.pizzaria3b.service.IndiceBuscaChat.Pagina;
+
+/**
+ * Busca no histórico do chat (/api/chat/search) sem LIKE '%...%' no banco.
+ *
+ * O IndiceBuscaChat é montado na subida com uma leitura das mensagens e
+ * recebe cada mensagem nova pelo MensagemEvento, depois do commit. Numa
+ * recarga o índice anterior continua respondendo; as mensagens que chegam
+ * durante a carga também são guardadas e entram no índice novo quando ela
+ * termina (quem a carga já leu é ignorado pelo id). As remoções feitas durante
+ * a carga são guardadas do mesmo jeito e repetidas no índice novo depois das
+ * chegadas, como no IndiceOcupacao.
+ */
+@Service
+public class BuscaChatService {
+
+	private static final Logger log = LoggerFactory.getLogger(BuscaChatService.class);
+
+	private static final int TAMANHO_MAXIMO_PAGINA = 100;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private volatile IndiceBuscaChat indice = new IndiceBuscaChat();
+	private volatile boolean carregado;
+	// Alterados sob a trava da lista
+	private boolean carregando;
+	private final List<Documento> chegadasDuranteCarga = new ArrayList<>();
+	private final List<Integer> remocoesDuranteCarga = new ArrayList<>();
+
+	public BuscaChatService(JdbcTemplate jdbcTemplate) {
+		super();
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public boolean isCarregado() {
+		return carregado;
+	}
+
+	public Pagina buscar(String consulta, Integer conversaId, int pagina, int tamanho) {
+		if (!carregado) {
+			throw new IllegalStateException("Busca indisponível no momento");
+		}
+		return indice.buscar(consulta, conversaId, Math.max(0, pagina), tamanhoPagina(tamanho));
+	}
+
+	public static int tamanhoPagina(int tamanho) {
+		return Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+	}
+
+	// Mensagens apagadas pela limpeza do chat saem da busca
+	public void remover(List<Integer> ids) {
+		synchronized (chegadasDuranteCarga) {
+			if (carregando) {
+				remocoesDuranteCarga.addAll(ids);
+			}
+			IndiceBuscaChat atual = indice;
+			for (Integer id : ids) {
+				atual.remover(id);
+			}
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void carregar() {
+		synchronized (chegadasDuranteCarga) {
+			carregando = true;
+			chegadasDuranteCarga.clear();
+			remocoesDuranteCarga.clear();
+		}
+		try {
+			IndiceBuscaChat novo = new IndiceBuscaChat();
+			jdbcTemplate.query(
+					"SELECT m.id, m.conversa_id, m.seq, c.tipo, c.participante_id, m.remetente_tipo, m.mensagem, m.iniciadoEm " +
+					"FROM MensagemConversa m JOIN Conversa c ON c.id = m.conversa_id ORDER BY m.id",
+					rs -> {
+						novo.adicionar(new Documento(
+								rs.getInt("id"),
+								rs.getInt("conversa_id"),
+								rs.getLong("seq"),
+								rs.getString("tipo"),
+								rs.getInt("participante_id"),
+								rs.getString("remetente_tipo"),
+								rs.getString("mensagem"),
+								rs.getTimestamp("iniciadoEm") != null ? rs.getTimestamp("iniciadoEm").toLocalDateTime() : null));
+					});
+			synchronized (chegadasDuranteCarga) {
+				chegadasDuranteCarga.forEach(novo::adicionar);
+				remocoesDuranteCarga.forEach(novo::remover);
+				chegadasDuranteCarga.clear();
+				remocoesDuranteCarga.clear();
+				indice = novo;
+				carregando = false;
+				carregado = true;
+			}
+			log.info("Índice de busca do chat carregado com {} mensagens", novo.tamanho());
+		} catch (Exception e) {
+			synchronized (chegadasDuranteCarga) {
+				carregando = false;
+				chegadasDuranteCarga.clear();
+				remocoesDuranteCarga.clear();
+			}
+			log.error("Erro ao carregar índice de busca do chat", e);
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void aoEnviarMensagem(MensagemEvento evento) {
+		Map<String, Object> mensagem = evento.mensagem();
+		boolean doAdmin = Integer.valueOf(ChatService.ADMIN_ID).equals(mensagem.get("sender_id"));
+		Documento documento = new Documento(
+				((Number) mensagem.get("id")).intValue(),
+				(Integer) mensagem.get("conversa_id"),
+				((Number) mensagem.get("seq")).longValue(),
+				evento.conversa(),
+				evento.participanteId(),
+				doAdmin ? ChatService.ADMIN : evento.conversa(),
+				(String) mensagem.get("message"),
+				mensagem.get("created_at") instanceof Timestamp criadaEm ? criadaEm.toLocalDateTime() : LocalDateTime.now());
+		synchronized (chegadasDuranteCarga) {
+			if (carregando) {
+				chegadasDuranteCarga.add(documento);
+			}
+			indice.adicionar(documento);
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import br.itb.projeto.pizzaria3b.rest.exception.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * "Próximo horário perto de mim": os primeiros horários livres de um serviço
+ * entre os barbeiros das barbearias parceiras ativas dentro do raio que
+ * oferecem o serviço (Servico.barbearia_id nulo vale para todas).
+ *
+ * Cada barbearia é consultada em paralelo sobre o mapa de ocupação em memória
+ * (AgendamentoService.disponibilidade); do banco só vem o expediente de cada
+ * barbeiro, que o AgendamentoService guarda por alguns minutos. Um heap
+ * limitado a 'limite' itens junta os resultados, ordenados por horário e
+ * depois por distância.
+ */
+@Service
+public class BuscaHorarioProximoService {
+
+	public static final int LIMITE_MAXIMO = 50;
+	public static final double RAIO_MAXIMO_KM = 50;
+	private static final int DIAS_BUSCA = 7;
+	private static final int PASSO_MINUTOS = 15;
+	private static final double RAIO_TERRA_KM = 6371;
+	private static final long VALIDADE_BARBEIROS_MS = 5 * 60 * 1000;
+
+	public record Sugestao(LocalDateTime horario, Long barbeiroId, String barbeiroNome, Long barbeariaId,
+			String barbeariaNome, double distanciaKm) {
+	}
+
+	private record BarbeiroLocal(Long barbeiroId, String barbeiroNome, Long barbeariaId, String barbeariaNome,
+			double latitude, double longitude) {
+	}
+
+	private record Cache(List<BarbeiroLocal> barbeiros, long carregadoEm) {
+	}
+
+	// barbeariaId null: serviço oferecido em todas as barbearias
+	private record BarbeariaDoServico(Long barbeariaId, long carregadoEm) {
+	}
+
+	// Primeiro o horário mais cedo; no mesmo horário, a barbearia mais perto
+	private static final Comparator<Sugestao> MELHOR_PRIMEIRO = Comparator
+			.comparing(Sugestao::horario)
+			.thenComparingDouble(Sugestao::distanciaKm)
+			.thenComparing(Sugestao::barbeiroId);
+
+	private JdbcTemplate jdbcTemplate;
+	private AgendamentoService agendamentoService;
+
+	private volatile Cache cache;
+	private final Map<Long, BarbeariaDoServico> barbeariaPorServico = new ConcurrentHashMap<>();
+	private final ExecutorService executor = Executors.newFixedThreadPool(8, tarefa -> {
+		Thread thread = new Thread(tarefa, "busca-horario-proximo");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public BuscaHorarioProximoService(JdbcTemplate jdbcTemplate, AgendamentoService agendamentoService) {
+		super();
+		this.jdbcTemplate = jdbcTemplate;
+		this.agendamentoService = agendamentoService;
+	}
+
+	public List<Sugestao> buscar(double latitude, double longitude, double raioKm, Long servicoId, int limite) {
+		int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+		double raio = Math.min(raioKm, RAIO_MAXIMO_KM);
+
+		Long barbeariaDoServico = barbeariaDoServico(servicoId);
+		Map<Long, List<BarbeiroLocal>> porBarbearia = new LinkedHashMap<>();
+		Map<Long, Double> distancias = new LinkedHashMap<>();
+		for (BarbeiroLocal barbeiro : barbeiros()) {
+			if (barbeariaDoServico != null && !barbeariaDoServico.equals(barbeiro.barbeariaId())) {
+				continue;
+			}
+			Double distancia = distancias.computeIfAbsent(barbeiro.barbeariaId(),
+					id -> distanciaKm(latitude, longitude, barbeiro.latitude(), barbeiro.longitude()));
+			if (distancia <= raio) {
+				porBarbearia.computeIfAbsent(barbeiro.barbeariaId(), id -> new ArrayList<>()).add(barbeiro);
+			}
+		}
+
+		List<CompletableFuture<List<Sugestao>>> tarefas = new ArrayList<>(porBarbearia.size());
+		for (Map.Entry<Long, List<BarbeiroLocal>> barbearia : porBarbearia.entrySet()) {
+			double distancia = distancias.get(barbearia.getKey());
+			tarefas.add(CompletableFuture.supplyAsync(
+					() -> horariosDaBarbearia(barbearia.getValue(), distancia, servicoId, tamanho), executor));
+		}
+
+		// Heap com o pior dos melhores no topo: cada sugestão custa O(log limite)
+		PriorityQueue<Sugestao> melhores = new PriorityQueue<>(tamanho + 1, MELHOR_PRIMEIRO.reversed());
+		try {
+			for (CompletableFuture<List<Sugestao>> tarefa : tarefas) {
+				for (Sugestao sugestao : tarefa.join()) {
+					melhores.offer(sugestao);
+					if (melhores.size() > tamanho) {
+						melhores.poll();
+					}
+				}
+			}
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException causa ? causa : e;
+		}
+
+		List<Sugestao> resultado = new ArrayList<>(melhores);
+		resultado.sort(MELHOR_PRIMEIRO);
+		return resultado;
+	}
+
+	// Até 'limite' horários por barbeiro, dia a dia, parando assim que completar
+	private List<Sugestao> horariosDaBarbearia(List<BarbeiroLocal> barbeiros, double distancia, Long servicoId, int limite) {
+		List<Sugestao> sugestoes = new ArrayList<>();
+		LocalDate hoje = LocalDate.now();
+		for (BarbeiroLocal barbeiro : barbeiros) {
+			int encontrados = 0;
+			for (LocalDate dia = hoje; encontrados < limite && dia.isBefore(hoje.plusDays(DIAS_BUSCA)); dia = dia.plusDays(1)) {
+				List<LocalDateTime> horarios;
+				try {
+					horarios = agendamentoService.disponibilidade(barbeiro.barbeiroId(), servicoId, dia, dia, PASSO_MINUTOS);
+				} catch (ResourceNotFoundException e) {
+					// Barbeiro removido desde o cache: segue para o próximo
+					break;
+				}
+				for (int i = 0; i < horarios.size() && encontrados < limite; i++, encontrados++) {
+					sugestoes.add(new Sugestao(horarios.get(i), barbeiro.barbeiroId(), barbeiro.barbeiroNome(),
+							barbeiro.barbeariaId(), barbeiro.barbeariaNome(), distancia));
+				}
+			}
+		}
+		return sugestoes;
+	}
+
+	private Long barbeariaDoServico(Long servicoId) {
+		BarbeariaDoServico atual = barbeariaPorServico.get(servicoId);
+		if (atual == null || System.currentTimeMillis() - atual.carregadoEm() > VALIDADE_BARBEIROS_MS) {
+			List<Long> resultado = jdbcTemplate.queryForList(
+					"SELECT CAST(barbearia_id AS BIGINT) FROM Servico WHERE id = ?", Long.class, servicoId);
+			if (resultado.isEmpty()) {
+				throw new ResourceNotFoundException("Serviço não encontrado");
+			}
+			atual = new BarbeariaDoServico(resultado.get(0), System.currentTimeMillis());
+			barbeariaPorServico.put(servicoId, atual);
+		}
+		return atual.barbeariaId();
+	}
+
+	private List<BarbeiroLocal> barbeiros() {
+		Cache atual = cache;
+		if (atual == null || System.currentTimeMillis() - atual.carregadoEm() > VALIDADE_BARBEIROS_MS) {
+			List<BarbeiroLocal> barbeiros = jdbcTemplate.query(
+					"SELECT CAST(b.id AS BIGINT) AS barbeiro_id, b.nome AS barbeiro_nome, " +
+					"CAST(ba.id AS BIGINT) AS barbearia_id, ba.nome AS barbearia_nome, ba.latitude, ba.longitude " +
+					"FROM Barbeiro b " +
+					"JOIN Barbearia ba ON b.barbearia_id = ba.id " +
+					"WHERE ba.parceira = 1 AND ba.ativo = 1 " +
+					"AND ba.latitude IS NOT NULL AND ba.longitude IS NOT NULL " +
+					"AND (b.disponibilidade IS NULL OR b.disponibilidade = 1)",
+					(rs, rowNum) -> new BarbeiroLocal(
+							rs.getLong("barbeiro_id"),
+							rs.getString("barbeiro_nome"),
+							rs.getLong("barbearia_id"),
+							rs.getString("barbearia_nome"),
+							rs.getDouble("latitude"),
+							rs.getDouble("longitude")));
+			atual = new Cache(barbeiros, System.currentTimeMillis());
+			cache = atual;
+		}
+		return atual.barbeiros();
+	}
+
+	// Haversine
+	private static double distanciaKm(double lat1, double lon1, double lat2, double lon2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+		return 2 * RAIO_TERRA_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		executor.shutdownNow();
+	}
+}
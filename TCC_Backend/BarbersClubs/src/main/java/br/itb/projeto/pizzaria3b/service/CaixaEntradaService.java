@@ -0,0 +1,231 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Caixa de entrada do painel do admin: por conversa, a última mensagem e
+ * quantas mensagens do participante o admin ainda não leu.
+ *
+ * A primeira consulta monta a última mensagem de cada conversa pelo índice
+ * clusterizado. Depois a caixa fica em memória e é atualizada a cada
+ * MensagemEvento, sem voltar ao banco; apagar mensagens em massa invalida a
+ * caixa. Como o admin é sempre o id 1, há uma caixa só.
+ *
+ * As não lidas vêm do ContadorNaoLidas a cada listagem. Enquanto ele não está
+ * carregado, são contadas no banco com uma agregação só.
+ */
+@Service
+public class CaixaEntradaService {
+
+	public record Entrada(Integer conversaId, String tipo, Integer participanteId, String nome, long ultimoSeq,
+			String ultimaMensagem, String ultimoRemetenteTipo, LocalDateTime ultimaEm, int naoLidas) {
+	}
+
+	private static class Estado {
+		final Integer conversaId;
+		final String tipo;
+		final Integer participanteId;
+		final String nome;
+		long ultimoSeq;
+		String ultimaMensagem;
+		String ultimoRemetenteTipo;
+		LocalDateTime ultimaEm;
+
+		Estado(Integer conversaId, String tipo, Integer participanteId, String nome) {
+			this.conversaId = conversaId;
+			this.tipo = tipo;
+			this.participanteId = participanteId;
+			this.nome = nome;
+		}
+
+		Entrada entrada(int naoLidas) {
+			return new Entrada(conversaId, tipo, participanteId, nome, ultimoSeq, ultimaMensagem, ultimoRemetenteTipo,
+					ultimaEm, naoLidas);
+		}
+	}
+
+	private static final Comparator<Entrada> MAIS_RECENTE_PRIMEIRO = Comparator
+			.comparing(Entrada::ultimaEm, Comparator.nullsLast(Comparator.reverseOrder()))
+			.thenComparing(Entrada::conversaId);
+
+	private JdbcTemplate jdbcTemplate;
+	private ContadorNaoLidas contadorNaoLidas;
+
+	// null até a primeira consulta e depois de invalidar; só alterado sob a trava do serviço
+	private Map<Integer, Estado> estados;
+	private long versao;
+
+	public CaixaEntradaService(JdbcTemplate jdbcTemplate, ContadorNaoLidas contadorNaoLidas) {
+		super();
+		this.jdbcTemplate = jdbcTemplate;
+		this.contadorNaoLidas = contadorNaoLidas;
+	}
+
+	public List<Entrada> listar() {
+		List<Estado> copia = null;
+		synchronized (this) {
+			if (estados != null) {
+				copia = new ArrayList<>(estados.size());
+				for (Estado estado : estados.values()) {
+					copia.add(copiar(estado));
+				}
+			}
+		}
+		if (copia == null) {
+			copia = carregar();
+		}
+
+		Map<Integer, Integer> contadasNoBanco = null;
+		List<Entrada> lista = new ArrayList<>(copia.size());
+		for (Estado estado : copia) {
+			Integer naoLidas = contadorNaoLidas.naoLidas(estado.conversaId, true);
+			if (naoLidas == null) {
+				// Contadores ainda não carregados: uma contagem no banco serve a lista toda
+				if (contadasNoBanco == null) {
+					contadasNoBanco = contarNaoLidas();
+				}
+				naoLidas = contadasNoBanco.getOrDefault(estado.conversaId, 0);
+			}
+			lista.add(estado.entrada(naoLidas));
+		}
+		lista.sort(MAIS_RECENTE_PRIMEIRO);
+		return lista;
+	}
+
+	public synchronized void invalidar() {
+		estados = null;
+		versao++;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void aoEnviarMensagem(MensagemEvento evento) {
+		Map<String, Object> mensagem = evento.mensagem();
+		Integer conversaId = (Integer) mensagem.get("conversa_id");
+		long seq = ((Number) mensagem.get("seq")).longValue();
+		boolean doAdmin = Integer.valueOf(ChatService.ADMIN_ID).equals(mensagem.get("sender_id"));
+
+		String nome = null;
+		synchronized (this) {
+			if (estados != null && !estados.containsKey(conversaId)) {
+				nome = "";
+			}
+		}
+		// Conversa nova na caixa: o nome é buscado fora da trava
+		if (nome != null) {
+			nome = nome(evento.conversa(), evento.participanteId());
+		}
+
+		synchronized (this) {
+			versao++;
+			if (estados == null) {
+				return;
+			}
+			final String nomeParticipante = nome;
+			Estado estado = estados.computeIfAbsent(conversaId,
+					id -> new Estado(id, evento.conversa(), evento.participanteId(), nomeParticipante));
+			// Listeners de commits seguidos podem rodar fora de ordem: a última mensagem é a de maior seq
+			if (seq > estado.ultimoSeq) {
+				estado.ultimoSeq = seq;
+				estado.ultimaMensagem = (String) mensagem.get("message");
+				estado.ultimoRemetenteTipo = doAdmin ? ChatService.ADMIN : estado.tipo;
+				estado.ultimaEm = dataHora(mensagem.get("created_at"));
+			}
+		}
+	}
+
+	private List<Estado> carregar() {
+		long versaoInicial;
+		synchronized (this) {
+			versaoInicial = versao;
+		}
+		Map<Integer, Estado> carregados = new HashMap<>();
+		jdbcTemplate.query(
+				"SELECT c.id, c.tipo, c.participante_id, COALESCE(cl.nome, b.nome) AS nome, " +
+				"u.seq, u.mensagem, u.remetente_tipo, u.iniciadoEm " +
+				"FROM Conversa c " +
+				"CROSS APPLY (SELECT TOP 1 seq, mensagem, remetente_tipo, iniciadoEm FROM MensagemConversa " +
+				"WHERE conversa_id = c.id ORDER BY seq DESC) u " +
+				"LEFT JOIN Cliente cl ON c.tipo = 'cliente' AND cl.id = c.participante_id " +
+				"LEFT JOIN Barbeiro b ON c.tipo = 'barbeiro' AND b.id = c.participante_id",
+				rs -> {
+					Estado estado = new Estado(rs.getInt("id"), rs.getString("tipo"), rs.getInt("participante_id"),
+							rs.getString("nome"));
+					estado.ultimoSeq = rs.getLong("seq");
+					estado.ultimaMensagem = rs.getString("mensagem");
+					estado.ultimoRemetenteTipo = rs.getString("remetente_tipo");
+					estado.ultimaEm = rs.getTimestamp("iniciadoEm") != null ? rs.getTimestamp("iniciadoEm").toLocalDateTime() : null;
+					carregados.put(estado.conversaId, estado);
+				});
+
+		List<Estado> lista = new ArrayList<>(carregados.size());
+		synchronized (this) {
+			for (Estado estado : carregados.values()) {
+				lista.add(copiar(estado));
+			}
+			// Se algo mudou durante a consulta, a carga pode estar atrás: serve, mas não fica guardada
+			if (versao == versaoInicial) {
+				estados = carregados;
+			}
+		}
+		return lista;
+	}
+
+	// Não lidas pelo admin em cada conversa, pelo índice filtrado
+	private Map<Integer, Integer> contarNaoLidas() {
+		Map<Integer, Integer> contagens = new HashMap<>();
+		jdbcTemplate.query(
+				"SELECT conversa_id, COUNT(*) AS nao_lidas FROM MensagemConversa " +
+				"WHERE lida = 0 AND remetente_tipo <> 'admin' GROUP BY conversa_id",
+				rs -> {
+					contagens.put(rs.getInt("conversa_id"), rs.getInt("nao_lidas"));
+				});
+		return contagens;
+	}
+
+	private static Estado copiar(Estado estado) {
+		Estado copia = new Estado(estado.conversaId, estado.tipo, estado.participanteId, estado.nome);
+		copia.ultimoSeq = estado.ultimoSeq;
+		copia.ultimaMensagem = estado.ultimaMensagem;
+		copia.ultimoRemetenteTipo = estado.ultimoRemetenteTipo;
+		copia.ultimaEm = estado.ultimaEm;
+		return copia;
+	}
+
+	private String nome(String tipo, Integer participanteId) {
+		String tabela = ChatService.BARBEIRO.equals(tipo) ? "Barbeiro" : "Cliente";
+		List<String> nomes = jdbcTemplate.queryForList("SELECT nome FROM " + tabela + " WHERE id = ?",
+				String.class, participanteId);
+		return nomes.isEmpty() ? null : nomes.get(0);
+	}
+
+	private static LocalDateTime dataHora(Object valor) {
+		if (valor instanceof java.sql.Timestamp timestamp) {
+			return timestamp.toLocalDateTime();
+		}
+		return valor instanceof LocalDateTime dataHora ? dataHora : LocalDateTime.now();
+	}
+
+	public static Map<String, Object> paraResposta(Entrada entrada) {
+		Map<String, Object> item = new LinkedHashMap<>();
+		item.put("conversa_id", entrada.conversaId());
+		item.put("tipo", entrada.tipo());
+		item.put("participante_id", entrada.participanteId());
+		item.put("name", entrada.nome());
+		item.put("last_seq", entrada.ultimoSeq());
+		item.put("last_message", entrada.ultimaMensagem());
+		item.put("last_sender_type", entrada.ultimoRemetenteTipo());
+		item.put("last_at", entrada.ultimaEm());
+		item.put("unread", entrada.naoLidas());
+		return item;
+	}
+}
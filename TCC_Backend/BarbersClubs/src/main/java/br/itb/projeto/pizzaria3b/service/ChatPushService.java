@@ -0,0 +1,42 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Entrega as mensagens novas pelo WebSocket (STOMP em /ws) para quem está com
+ * a conversa aberta, em vez de o cliente reler o histórico a cada poucos
+ * segundos.
+ *
+ * Tópicos: /topic/chat/cliente/{clienteId}, /topic/chat/barbeiro/{barbeiroId}
+ * e /topic/chat/admin, que recebe todas as conversas para o painel, com tipo e
+ * participante_id para ele saber de qual conversa é cada mensagem.
+ *
+ * Só entrega depois do commit, para o app não receber um seq que uma releitura
+ * com "since" ainda não enxerga.
+ */
+@Service
+public class ChatPushService {
+
+	public static final String TOPICO = "/topic/chat/";
+
+	private SimpMessagingTemplate messagingTemplate;
+
+	public ChatPushService(SimpMessagingTemplate messagingTemplate) {
+		super();
+		this.messagingTemplate = messagingTemplate;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void aoEnviarMensagem(MensagemEvento evento) {
+		messagingTemplate.convertAndSend(TOPICO + evento.conversa() + "/" + evento.participanteId(), evento.mensagem());
+		Map<String, Object> paraAdmin = new HashMap<>(evento.mensagem());
+		paraAdmin.put("tipo", evento.conversa());
+		paraAdmin.put("participante_id", evento.participanteId());
+		messagingTemplate.convertAndSend(TOPICO + ChatService.ADMIN, paraAdmin);
+	}
+}
@@ -0,0 +1,247 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Gravação e leitura das mensagens do chat. Toda conversa é entre o admin
+ * (sempre o id 1) e um participante, cliente ou barbeiro, e fica em Conversa;
+ * as mensagens ficam em MensagemConversa, ordenadas por (conversa_id, seq).
+ *
+ * seq cresce de 1 em 1 dentro da conversa e é o cursor "since" das
+ * consultas. O contador fica em Conversa.ultimo_seq e é incrementado na mesma
+ * transação do INSERT: a trava da linha da conversa só sai no commit, então
+ * seq segue a ordem de commit (o id IDENTITY não segue) e não volta a 1 quando
+ * mensagens antigas são apagadas.
+ *
+ * Cada mensagem gravada é publicada como MensagemEvento, no mesmo formato
+ * devolvido pelas consultas do ChatController.
+ */
+@Service
+public class ChatService {
+
+	public static final int ADMIN_ID = 1;
+	public static final String ADMIN = "admin";
+	public static final String CLIENTE = "cliente";
+	public static final String BARBEIRO = "barbeiro";
+
+	public record Conversa(Integer id, String tipo, Integer participanteId) {
+	}
+
+	public record Envio(Conversa conversa, boolean doAdmin, String mensagem) {
+	}
+
+	private JdbcTemplate jdbcTemplate;
+	private ApplicationEventPublisher eventPublisher;
+
+	// Conversas não mudam de participante: guardadas por "tipo:participante" e por id
+	private final Map<String, Conversa> porParticipante = new ConcurrentHashMap<>();
+	private final Map<Integer, Conversa> porId = new ConcurrentHashMap<>();
+
+	public ChatService(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+		super();
+		this.jdbcTemplate = jdbcTemplate;
+		this.eventPublisher = eventPublisher;
+	}
+
+	public Conversa buscarConversa(String tipo, int participanteId) {
+		validarTipo(tipo);
+		Conversa conversa = porParticipante.get(chave(tipo, participanteId));
+		if (conversa == null) {
+			List<Conversa> encontradas = jdbcTemplate.query(
+					"SELECT id, tipo, participante_id FROM Conversa WHERE tipo = ? AND participante_id = ?",
+					(rs, rowNum) -> new Conversa(rs.getInt("id"), rs.getString("tipo"), rs.getInt("participante_id")),
+					tipo, participanteId);
+			if (encontradas.isEmpty()) {
+				return null;
+			}
+			conversa = guardar(encontradas.get(0));
+		}
+		return conversa;
+	}
+
+	public Conversa buscarConversa(int conversaId) {
+		Conversa conversa = porId.get(conversaId);
+		if (conversa == null) {
+			List<Conversa> encontradas = jdbcTemplate.query(
+					"SELECT id, tipo, participante_id FROM Conversa WHERE id = ?",
+					(rs, rowNum) -> new Conversa(rs.getInt("id"), rs.getString("tipo"), rs.getInt("participante_id")),
+					conversaId);
+			if (encontradas.isEmpty()) {
+				return null;
+			}
+			conversa = guardar(encontradas.get(0));
+		}
+		return conversa;
+	}
+
+	// Abre a conversa na primeira mensagem do participante
+	public Conversa abrirConversa(String tipo, int participanteId) {
+		Conversa conversa = buscarConversa(tipo, participanteId);
+		if (conversa != null) {
+			return conversa;
+		}
+		jdbcTemplate.update(
+				"INSERT INTO Conversa (tipo, participante_id) SELECT ?, ? " +
+				"WHERE NOT EXISTS (SELECT 1 FROM Conversa WITH (UPDLOCK, HOLDLOCK) WHERE tipo = ? AND participante_id = ?)",
+				tipo, participanteId, tipo, participanteId);
+		return buscarConversa(tipo, participanteId);
+	}
+
+	/**
+	 * Mensagens da conversa com seq maior que 'since' (0 para a conversa
+	 * inteira), em ordem de seq. Uma única leitura pelo índice clusterizado.
+	 */
+	public List<Map<String, Object>> mensagens(Conversa conversa, long since) {
+		return jdbcTemplate.queryForList(
+				"SELECT id, seq, conversa_id, mensagem as message, " +
+				"CASE WHEN remetente_tipo = 'admin' THEN 1 ELSE ? END as sender_id, " +
+				"CASE WHEN remetente_tipo = 'admin' THEN ? ELSE 1 END as receiver_id, " +
+				"iniciadoEm as created_at, lida as is_read " +
+				"FROM MensagemConversa WHERE conversa_id = ? AND seq > ? ORDER BY seq ASC",
+				conversa.participanteId(), conversa.participanteId(), conversa.id(), since);
+	}
+
+	@Transactional
+	public Map<String, Object> enviar(Conversa conversa, boolean doAdmin, String mensagem) {
+		Long seq = jdbcTemplate.queryForObject(
+				"UPDATE Conversa SET ultimo_seq = ultimo_seq + 1 OUTPUT INSERTED.ultimo_seq WHERE id = ?",
+				Long.class, conversa.id());
+		Map<String, Object> gravada = jdbcTemplate.queryForMap(
+				"INSERT INTO MensagemConversa (conversa_id, seq, mensagem, remetente_tipo) " +
+				"OUTPUT INSERTED.id, INSERTED.iniciadoEm VALUES (?, ?, ?, ?)",
+				conversa.id(), seq, mensagem, doAdmin ? ADMIN : conversa.tipo());
+		return publicar(conversa, doAdmin, mensagem, seq, gravada);
+	}
+
+	/**
+	 * Grava várias mensagens em duas idas ao banco, na ordem da lista: um
+	 * UPDATE reserva os seq de todas as conversas do lote e um INSERT com
+	 * várias linhas grava as mensagens. Devolve as mensagens na mesma ordem.
+	 */
+	@Transactional
+	public List<Map<String, Object>> enviarLote(List<Envio> envios) {
+		Map<Integer, Integer> quantidadePorConversa = new LinkedHashMap<>();
+		for (Envio envio : envios) {
+			quantidadePorConversa.merge(envio.conversa().id(), 1, Integer::sum);
+		}
+
+		StringBuilder valoresConversa = new StringBuilder();
+		List<Object> parametros = new ArrayList<>();
+		for (Map.Entry<Integer, Integer> conversa : quantidadePorConversa.entrySet()) {
+			valoresConversa.append(valoresConversa.length() > 0 ? ", (?, ?)" : "(?, ?)");
+			parametros.add(conversa.getKey());
+			parametros.add(conversa.getValue());
+		}
+		// Primeiro seq livre de cada conversa depois da reserva do lote inteiro
+		Map<Integer, Long> proximoSeq = new HashMap<>();
+		jdbcTemplate.query(
+				"UPDATE c SET ultimo_seq = c.ultimo_seq + v.n OUTPUT INSERTED.id, INSERTED.ultimo_seq " +
+				"FROM Conversa c JOIN (VALUES " + valoresConversa + ") AS v(id, n) ON v.id = c.id",
+				rs -> {
+					int conversaId = rs.getInt("id");
+					proximoSeq.put(conversaId, rs.getLong("ultimo_seq") - quantidadePorConversa.get(conversaId) + 1);
+				},
+				parametros.toArray());
+
+		StringBuilder valoresMensagem = new StringBuilder();
+		parametros.clear();
+		long[] seqs = new long[envios.size()];
+		for (int i = 0; i < envios.size(); i++) {
+			Envio envio = envios.get(i);
+			seqs[i] = proximoSeq.merge(envio.conversa().id(), 1L, Long::sum) - 1;
+			valoresMensagem.append(i > 0 ? ", (?, ?, ?, ?)" : "(?, ?, ?, ?)");
+			parametros.add(envio.conversa().id());
+			parametros.add(seqs[i]);
+			parametros.add(envio.mensagem());
+			parametros.add(envio.doAdmin() ? ADMIN : envio.conversa().tipo());
+		}
+		Map<String, Map<String, Object>> gravadas = new HashMap<>();
+		for (Map<String, Object> gravada : jdbcTemplate.queryForList(
+				"INSERT INTO MensagemConversa (conversa_id, seq, mensagem, remetente_tipo) " +
+				"OUTPUT INSERTED.id, INSERTED.conversa_id, INSERTED.seq, INSERTED.iniciadoEm VALUES " + valoresMensagem,
+				parametros.toArray())) {
+			gravadas.put(gravada.get("conversa_id") + ":" + gravada.get("seq"), gravada);
+		}
+
+		List<Map<String, Object>> enviadas = new ArrayList<>(envios.size());
+		for (int i = 0; i < envios.size(); i++) {
+			Envio envio = envios.get(i);
+			enviadas.add(publicar(envio.conversa(), envio.doAdmin(), envio.mensagem(), seqs[i],
+					gravadas.get(envio.conversa().id() + ":" + seqs[i])));
+		}
+		return enviadas;
+	}
+
+	private Map<String, Object> publicar(Conversa conversa, boolean doAdmin, String mensagem, long seq,
+			Map<String, Object> gravada) {
+		int participanteId = conversa.participanteId();
+		Map<String, Object> enviada = new LinkedHashMap<>();
+		enviada.put("id", gravada.get("id"));
+		enviada.put("seq", seq);
+		enviada.put("conversa_id", conversa.id());
+		enviada.put("message", mensagem);
+		enviada.put("sender_id", doAdmin ? ADMIN_ID : participanteId);
+		enviada.put("receiver_id", doAdmin ? participanteId : ADMIN_ID);
+		enviada.put("created_at", gravada.get("iniciadoEm"));
+		enviada.put("is_read", false);
+		eventPublisher.publishEvent(new MensagemEvento(conversa.tipo(), participanteId, enviada));
+		return enviada;
+	}
+
+	/**
+	 * Marca como lidas, num UPDATE só, as mensagens que o outro lado mandou
+	 * para 'leitor' ("admin" ou o tipo da conversa) até o seq 'ateSeq' (null
+	 * para todas). Devolve quantas mudaram.
+	 */
+	@Transactional
+	public int marcarLidas(Conversa conversa, String leitor, Long ateSeq) {
+		boolean admin = ADMIN.equals(leitor);
+		if (!admin && !conversa.tipo().equals(leitor)) {
+			throw new IllegalArgumentException("Leitor inválido para a conversa: " + leitor);
+		}
+		List<Long> marcadas = jdbcTemplate.queryForList(
+				"UPDATE MensagemConversa SET lida = 1 OUTPUT INSERTED.seq " +
+				"WHERE conversa_id = ? AND seq <= ? AND lida = 0 AND " + (admin ? "remetente_tipo <> 'admin'" : "remetente_tipo = 'admin'"),
+				Long.class, conversa.id(), ateSeq != null ? ateSeq : Long.MAX_VALUE);
+		if (!marcadas.isEmpty()) {
+			long maiorSeq = marcadas.stream().mapToLong(Long::longValue).max().getAsLong();
+			eventPublisher.publishEvent(new LeituraEvento(conversa.id(), leitor, maiorSeq, marcadas.size()));
+		}
+		return marcadas.size();
+	}
+
+	/**
+	 * Tipo do participante para os apps que ainda não mandam "tipo": o mesmo
+	 * critério das tabelas antigas (quem está em Barbeiro é barbeiro).
+	 */
+	public String tipoLegado(int participanteId) {
+		int isBarber = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Barbeiro WHERE id = ?", Integer.class, participanteId);
+		return isBarber > 0 ? BARBEIRO : CLIENTE;
+	}
+
+	public static void validarTipo(String tipo) {
+		if (!CLIENTE.equals(tipo) && !BARBEIRO.equals(tipo)) {
+			throw new IllegalArgumentException("Tipo de conversa inválido: " + tipo);
+		}
+	}
+
+	private Conversa guardar(Conversa conversa) {
+		porParticipante.put(chave(conversa.tipo(), conversa.participanteId()), conversa);
+		porId.put(conversa.id(), conversa);
+		return conversa;
+	}
+
+	private static String chave(String tipo, int participanteId) {
+		return tipo + ":" + participanteId;
+	}
+}
@@ -0,0 +1,225 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Contadores de mensagens não lidas por conversa e por leitor (o admin ou o
+ * participante), para o badge não fazer COUNT(*) a cada atualização.
+ *
+ * Os contadores ficam em faixas, cada uma com a sua trava, como as travas por
+ * barbeiro do AgendamentoService, e o total do admin fica num LongAdder. Não
+ * há cópia dos contadores no banco: a coluna lida é o estado durável, gravada
+ * pelo próprio envio e pelo ChatService.marcarLidas, e os contadores são
+ * recalculados dela na subida da aplicação. Se a carga não fechar (banco fora
+ * do ar ou chat em uso durante a consulta), uma tarefa agendada tenta de novo
+ * até conseguir. Até lá, quem consulta recebe null e conta no banco.
+ *
+ * Os eventos entram antes do commit (e saem de novo se a transação for
+ * desfeita): assim uma recarga concorrente ou já vê a linha gravada, ou é
+ * descartada porque um evento chegou durante a consulta.
+ */
+@Component
+public class ContadorNaoLidas {
+
+	private static final Logger log = LoggerFactory.getLogger(ContadorNaoLidas.class);
+
+	private static final int NUMERO_FAIXAS = 32;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@SuppressWarnings("unchecked")
+	private final Map<Long, Integer>[] faixas = new Map[NUMERO_FAIXAS];
+	private final LongAdder totalAdmin = new LongAdder();
+	private final AtomicLong versao = new AtomicLong();
+	private final Set<Object> pendentes = ConcurrentHashMap.newKeySet();
+	// Eventos aplicam sob a leitura (em paralelo, cada um na sua faixa); a recarga troca tudo sob a escrita
+	private final ReentrantReadWriteLock recarga = new ReentrantReadWriteLock();
+	private volatile boolean carregado;
+
+	public ContadorNaoLidas(JdbcTemplate jdbcTemplate) {
+		super();
+		this.jdbcTemplate = jdbcTemplate;
+		for (int i = 0; i < faixas.length; i++) {
+			faixas[i] = new HashMap<>();
+		}
+	}
+
+	public boolean isCarregado() {
+		return carregado;
+	}
+
+	// Não lidas por 'leitor' na conversa; null enquanto os contadores não foram carregados
+	public Integer naoLidas(Integer conversaId, boolean leitorAdmin) {
+		if (!carregado) {
+			return null;
+		}
+		long chave = chave(conversaId, leitorAdmin);
+		Map<Long, Integer> faixa = faixa(chave);
+		synchronized (faixa) {
+			return faixa.getOrDefault(chave, 0);
+		}
+	}
+
+	public Long totalAdmin() {
+		return carregado ? totalAdmin.sum() : null;
+	}
+
+	// Depois de apagar mensagens em massa
+	public void recarregar() {
+		carregado = false;
+		carregar();
+	}
+
+	@Scheduled(fixedDelayString = "${chat.nao-lidas.nova-tentativa-ms:30000}", initialDelay = 30 * 1000)
+	public void carregarPendente() {
+		if (!carregado) {
+			carregar();
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void carregar() {
+		try {
+			// Um evento durante a consulta deixa a carga incerta: tenta de novo
+			for (int tentativa = 0; tentativa < 3 && !carregado; tentativa++) {
+				long versaoInicial = versao.get();
+				Map<Long, Integer> contagens = new HashMap<>();
+				jdbcTemplate.query(
+						"SELECT conversa_id, CASE WHEN remetente_tipo = 'admin' THEN 0 ELSE 1 END AS leitor_admin, " +
+						"COUNT(*) AS nao_lidas FROM MensagemConversa WHERE lida = 0 " +
+						"GROUP BY conversa_id, CASE WHEN remetente_tipo = 'admin' THEN 0 ELSE 1 END",
+						rs -> {
+							contagens.put(chave(rs.getInt("conversa_id"), rs.getInt("leitor_admin") == 1),
+									rs.getInt("nao_lidas"));
+						});
+				instalar(contagens, versaoInicial);
+			}
+			if (carregado) {
+				log.info("Contadores de não lidas carregados");
+			} else {
+				log.warn("Contadores de não lidas não carregados: chat em uso durante a carga");
+			}
+		} catch (Exception e) {
+			log.error("Erro ao carregar contadores de não lidas", e);
+		}
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+	public void aoEnviarMensagem(MensagemEvento evento) {
+		Map<String, Object> mensagem = evento.mensagem();
+		boolean leitorAdmin = !Integer.valueOf(ChatService.ADMIN_ID).equals(mensagem.get("sender_id"));
+		aplicar(evento, (Integer) mensagem.get("conversa_id"), leitorAdmin, 1);
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+	public void aoMarcarLidas(LeituraEvento evento) {
+		aplicar(evento, evento.conversaId(), ChatService.ADMIN.equals(evento.leitor()), -evento.marcadas());
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, classes = { MensagemEvento.class, LeituraEvento.class })
+	public void aoConfirmar(Object evento) {
+		pendentes.remove(evento);
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK, classes = { MensagemEvento.class, LeituraEvento.class })
+	public void aoDesfazer(Object evento) {
+		recarga.readLock().lock();
+		try {
+			// Só desfaz o que chegou a ser aplicado antes do commit
+			if (!pendentes.remove(evento)) {
+				return;
+			}
+			if (evento instanceof MensagemEvento mensagemEvento) {
+				Map<String, Object> mensagem = mensagemEvento.mensagem();
+				boolean leitorAdmin = !Integer.valueOf(ChatService.ADMIN_ID).equals(mensagem.get("sender_id"));
+				somar((Integer) mensagem.get("conversa_id"), leitorAdmin, -1);
+			} else if (evento instanceof LeituraEvento leituraEvento) {
+				somar(leituraEvento.conversaId(), ChatService.ADMIN.equals(leituraEvento.leitor()), leituraEvento.marcadas());
+			}
+		} finally {
+			recarga.readLock().unlock();
+		}
+	}
+
+	private void aplicar(Object evento, Integer conversaId, boolean leitorAdmin, int delta) {
+		recarga.readLock().lock();
+		try {
+			versao.incrementAndGet();
+			if (TransactionSynchronizationManager.isActualTransactionActive()) {
+				pendentes.add(evento);
+			}
+			somar(conversaId, leitorAdmin, delta);
+		} finally {
+			recarga.readLock().unlock();
+		}
+	}
+
+	private void somar(Integer conversaId, boolean leitorAdmin, int delta) {
+		long chave = chave(conversaId, leitorAdmin);
+		Map<Long, Integer> faixa = faixa(chave);
+		int anterior;
+		int valor;
+		synchronized (faixa) {
+			anterior = faixa.getOrDefault(chave, 0);
+			valor = Math.max(0, anterior + delta);
+			if (valor == 0) {
+				faixa.remove(chave);
+			} else {
+				faixa.put(chave, valor);
+			}
+		}
+		if (leitorAdmin) {
+			totalAdmin.add(valor - anterior);
+		}
+	}
+
+	private void instalar(Map<Long, Integer> contagens, long versaoInicial) {
+		recarga.writeLock().lock();
+		try {
+			// Evento aplicado mas ainda sem commit ou rollback: a consulta pode não bater com ele
+			if (versao.get() != versaoInicial || !pendentes.isEmpty()) {
+				return;
+			}
+			long total = 0;
+			for (Map<Long, Integer> faixa : faixas) {
+				faixa.clear();
+			}
+			for (Map.Entry<Long, Integer> contagem : contagens.entrySet()) {
+				faixa(contagem.getKey()).put(contagem.getKey(), contagem.getValue());
+				if ((contagem.getKey() & 1) == 1) {
+					total += contagem.getValue();
+				}
+			}
+			totalAdmin.reset();
+			totalAdmin.add(total);
+			carregado = true;
+		} finally {
+			recarga.writeLock().unlock();
+		}
+	}
+
+	private Map<Long, Integer> faixa(long chave) {
+		return faixas[(int) (Long.hashCode(chave) & 0x7fffffff) % NUMERO_FAIXAS];
+	}
+
+	private static long chave(Integer conversaId, boolean leitorAdmin) {
+		return ((long) conversaId << 1) | (leitorAdmin ? 1 : 0);
+	}
+}
@@ -0,0 +1,169 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import br.itb.projeto.pizzaria3b.service.ChatService.Conversa;
+import br.itb.projeto.pizzaria3b.service.ChatService.Envio;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Escrita agrupada das mensagens do chat (chat.escrita.agrupada=true).
+ *
+ * Com o banco a dezenas de milissegundos de distância, gravar cada mensagem
+ * no seu próprio comando deixa as rajadas esperando na fila do Tomcat. Aqui
+ * as mensagens entram numa fila limitada e uma thread junta o que chegar
+ * durante a janela (ou até o lote máximo) e grava tudo com
+ * ChatService.enviarLote, em duas idas ao banco por lote.
+ *
+ * Quem envia só recebe a resposta depois do commit do seu lote. Com a fila
+ * cheia, espera até 'espera-ms' por uma vaga e depois recebe
+ * IllegalStateException, em vez de acumular memória sem limite.
+ *
+ * Se o lote falhar por dado inválido ou violação de restrição, a transação foi
+ * desfeita e as mensagens são gravadas uma a uma. Qualquer outro erro (tempo
+ * esgotado, conexão caída) pode ter chegado depois do commit, então o lote
+ * inteiro falha em vez de gravar as mensagens de novo com outro seq.
+ *
+ * Desligada, cada envio vai direto para ChatService.enviar.
+ */
+@Service
+public class EscritaAgrupadaChat {
+
+	private static final Logger log = LoggerFactory.getLogger(EscritaAgrupadaChat.class);
+
+	private record Pendente(Envio envio, CompletableFuture<Map<String, Object>> resultado) {
+	}
+
+	private ChatService chatService;
+	private boolean ativa;
+	private long janelaMs;
+	private int loteMaximo;
+	private long esperaMs;
+
+	private final BlockingQueue<Pendente> fila;
+	private final Thread gravador;
+	private volatile boolean encerrando;
+
+	public EscritaAgrupadaChat(ChatService chatService,
+			@Value("${chat.escrita.agrupada:false}") boolean ativa,
+			@Value("${chat.escrita.janela-ms:5}") long janelaMs,
+			@Value("${chat.escrita.lote-maximo:200}") int loteMaximo,
+			@Value("${chat.escrita.capacidade:2000}") int capacidade,
+			@Value("${chat.escrita.espera-ms:2000}") long esperaMs) {
+		super();
+		this.chatService = chatService;
+		this.ativa = ativa;
+		this.janelaMs = janelaMs;
+		// INSERT com várias linhas: o SQL Server aceita até 2100 parâmetros, 4 por mensagem
+		this.loteMaximo = Math.max(1, Math.min(loteMaximo, 500));
+		this.esperaMs = esperaMs;
+		this.fila = new ArrayBlockingQueue<>(Math.max(1, capacidade));
+		this.gravador = new Thread(this::gravar, "chat-escrita");
+		this.gravador.setDaemon(true);
+		if (ativa) {
+			this.gravador.start();
+		}
+	}
+
+	public Map<String, Object> enviar(Conversa conversa, boolean doAdmin, String mensagem) {
+		if (!ativa) {
+			return chatService.enviar(conversa, doAdmin, mensagem);
+		}
+		Pendente pendente = new Pendente(new Envio(conversa, doAdmin, mensagem), new CompletableFuture<>());
+		try {
+			if (encerrando || !fila.offer(pendente, esperaMs, TimeUnit.MILLISECONDS)) {
+				throw new IllegalStateException("Chat sobrecarregado, tente novamente");
+			}
+			// O lote da frente pode estar esperando o banco: a espera cobre a fila e a gravação
+			return pendente.resultado().get(esperaMs + 30 * 1000, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Envio interrompido", e);
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof RuntimeException causa ? causa : new IllegalStateException(e.getCause());
+		} catch (TimeoutException e) {
+			// Pode ainda ser gravada: o cliente reenvia com a mesma Idempotency-Key
+			throw new IllegalStateException("Tempo esgotado ao gravar a mensagem");
+		}
+	}
+
+	private void gravar() {
+		List<Pendente> lote = new ArrayList<>(loteMaximo);
+		while (!encerrando || !fila.isEmpty()) {
+			try {
+				Pendente primeira = fila.poll(1, TimeUnit.SECONDS);
+				if (primeira == null) {
+					continue;
+				}
+				lote.add(primeira);
+				long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(janelaMs);
+				while (lote.size() < loteMaximo) {
+					long restante = prazo - System.nanoTime();
+					Pendente proxima = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : fila.poll();
+					if (proxima == null) {
+						break;
+					}
+					lote.add(proxima);
+				}
+				gravarLote(lote);
+			} catch (InterruptedException e) {
+				encerrando = true;
+			} finally {
+				lote.clear();
+			}
+		}
+	}
+
+	private void gravarLote(List<Pendente> lote) {
+		List<Envio> envios = new ArrayList<>(lote.size());
+		for (Pendente pendente : lote) {
+			envios.add(pendente.envio());
+		}
+		try {
+			List<Map<String, Object>> enviadas = chatService.enviarLote(envios);
+			for (int i = 0; i < lote.size(); i++) {
+				lote.get(i).resultado().complete(enviadas.get(i));
+			}
+		} catch (IllegalArgumentException | DataIntegrityViolationException e) {
+			log.warn("Lote de {} mensagens recusado, gravando uma a uma: {}", lote.size(), e.getMessage());
+			// O lote foi desfeito inteiro: grava uma a uma para só a mensagem com problema falhar
+			for (Pendente pendente : lote) {
+				try {
+					Envio envio = pendente.envio();
+					pendente.resultado().complete(chatService.enviar(envio.conversa(), envio.doAdmin(), envio.mensagem()));
+				} catch (Exception erro) {
+					pendente.resultado().completeExceptionally(erro);
+				}
+			}
+		} catch (Exception e) {
+			log.error("Erro ao gravar lote de {} mensagens", lote.size(), e);
+			// Sem saber se houve commit, não regrava: o cliente reenvia com a mesma Idempotency-Key
+			for (Pendente pendente : lote) {
+				pendente.resultado().completeExceptionally(e);
+			}
+		}
+	}
+
+	// Grava o que já está na fila antes de parar
+	@PreDestroy
+	public void encerrar() throws InterruptedException {
+		encerrando = true;
+		if (ativa) {
+			gravador.join(10 * 1000);
+		}
+	}
+}
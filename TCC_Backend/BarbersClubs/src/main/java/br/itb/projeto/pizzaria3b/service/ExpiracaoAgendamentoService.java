@@ -0,0 +1,52 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.time.LocalDateTime;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cancela periodicamente os agendamentos que ficaram Pendente depois do
+ * horário, para a lista de pendentes do barbeiro não crescer sem fim.
+ *
+ * Cada bloco é um único UPDATE TOP (n), então as travas duram pouco; a
+ * quantidade cancelada sai na métrica agendamentos.expirados.
+ */
+@Service
+public class ExpiracaoAgendamentoService {
+
+	private static final int TAMANHO_BLOCO = 500;
+	// Limita o trabalho de uma execução; o que sobrar fica para a próxima
+	private static final int MAXIMO_BLOCOS_POR_EXECUCAO = 40;
+	// Margem para o barbeiro ainda confirmar um atendimento que atrasou
+	private static final int TOLERANCIA_MINUTOS = 60;
+
+	private AgendamentoService agendamentoService;
+	private Counter expirados;
+
+	public ExpiracaoAgendamentoService(AgendamentoService agendamentoService, MeterRegistry meterRegistry) {
+		super();
+		this.agendamentoService = agendamentoService;
+		this.expirados = Counter.builder("agendamentos.expirados")
+				.description("Agendamentos Pendente cancelados por terem passado do horário")
+				.register(meterRegistry);
+	}
+
+	@Scheduled(fixedDelayString = "${agendamento.expiracao.intervalo-ms:300000}", initialDelay = 60 * 1000)
+	public int expirar() {
+		LocalDateTime limite = LocalDateTime.now().minusMinutes(TOLERANCIA_MINUTOS);
+		int total = 0;
+		for (int bloco = 0; bloco < MAXIMO_BLOCOS_POR_EXECUCAO; bloco++) {
+			int cancelados = agendamentoService.expirarPendentes(limite, TAMANHO_BLOCO);
+			total += cancelados;
+			expirados.increment(cancelados);
+			if (cancelados < TAMANHO_BLOCO) {
+				break;
+			}
+		}
+		return total;
+	}
+}
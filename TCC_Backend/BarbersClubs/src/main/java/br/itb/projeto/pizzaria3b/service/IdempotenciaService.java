@@ -0,0 +1,221 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Suporte ao header Idempotency-Key nos POSTs que o app pode reenviar.
+ *
+ * A primeira requisição com uma chave executa normalmente e, se der certo, a
+ * resposta fica guardada na memória (LRU limitado) e na tabela
+ * RequisicaoIdempotente (TCC_BANCO/tabela_requisicao_idempotente.sql). Os
+ * reenvios recebem a mesma resposta sem passar de novo pela operação.
+ * Respostas de erro não são guardadas, para o cliente poder tentar de novo.
+ */
+@Service
+public class IdempotenciaService {
+
+	public static final String HEADER = "Idempotency-Key";
+
+	private static final Duration VALIDADE = Duration.ofHours(24);
+	private static final int CAPACIDADE_MEMORIA = 10_000;
+	private static final int TAMANHO_MAXIMO_CHAVE = 100;
+	private static final long INTERVALO_LIMPEZA_MS = 60 * 60 * 1000;
+
+	private record Resposta(String impressao, int status, String corpo, LocalDateTime criadoEm) {
+	}
+
+	private JdbcTemplate jdbcTemplate;
+	private ObjectMapper objectMapper;
+
+	// Ordem de acesso: ao passar da capacidade sai a chave usada há mais tempo
+	private final Map<String, Resposta> memoria = new LinkedHashMap<>(256, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Resposta> maisAntiga) {
+			return size() > CAPACIDADE_MEMORIA;
+		}
+	};
+	// Reenvios que chegam enquanto a primeira requisição ainda executa esperam por ela
+	private final Map<String, CompletableFuture<Resposta>> emAndamento = new ConcurrentHashMap<>();
+	private final AtomicLong ultimaLimpeza = new AtomicLong();
+
+	public IdempotenciaService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+		super();
+		this.jdbcTemplate = jdbcTemplate;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Executa a operação uma única vez por (escopo, chave). Sem chave, apenas
+	 * executa. A mesma chave com outro corpo de requisição é recusada com 422.
+	 */
+	public ResponseEntity<?> executar(String escopo, String chave, Object requisicao,
+			Supplier<ResponseEntity<?>> operacao) {
+		if (chave == null || chave.isBlank()) {
+			return operacao.get();
+		}
+		if (chave.length() > TAMANHO_MAXIMO_CHAVE) {
+			return ResponseEntity.badRequest().body(Map.of(
+					"message", HEADER + " deve ter no máximo " + TAMANHO_MAXIMO_CHAVE + " caracteres",
+					"success", false));
+		}
+
+		String id = escopo + ":" + chave;
+		String impressao = impressao(requisicao);
+
+		Resposta salva = buscar(escopo, chave, id);
+		if (salva != null) {
+			return repetir(salva, impressao);
+		}
+
+		CompletableFuture<Resposta> execucao = new CompletableFuture<>();
+		CompletableFuture<Resposta> anterior = emAndamento.putIfAbsent(id, execucao);
+		if (anterior != null) {
+			Resposta resposta = anterior.join();
+			// A primeira falhou e nada foi guardado: esta tenta de novo
+			return resposta != null ? repetir(resposta, impressao) : executar(escopo, chave, requisicao, operacao);
+		}
+
+		Resposta resposta = null;
+		try {
+			// A anterior pode ter terminado entre a busca e o registro acima
+			salva = daMemoria(id);
+			if (salva != null) {
+				resposta = salva;
+				return repetir(salva, impressao);
+			}
+
+			ResponseEntity<?> resultado = operacao.get();
+			if (resultado.getStatusCode().is2xxSuccessful()) {
+				resposta = guardar(escopo, chave, id, impressao, resultado);
+			}
+			return resultado;
+		} finally {
+			execucao.complete(resposta);
+			emAndamento.remove(id, execucao);
+		}
+	}
+
+	private Resposta buscar(String escopo, String chave, String id) {
+		Resposta resposta = daMemoria(id);
+		if (resposta != null) {
+			return resposta;
+		}
+		List<Resposta> doBanco;
+		try {
+			doBanco = jdbcTemplate.query(
+					"SELECT impressao, statusHttp, resposta, criadoEm FROM RequisicaoIdempotente " +
+					"WHERE escopo = ? AND chave = ? AND criadoEm >= ?",
+					(rs, rowNum) -> new Resposta(rs.getString("impressao"), rs.getInt("statusHttp"),
+							rs.getString("resposta"), rs.getObject("criadoEm", LocalDateTime.class)),
+					escopo, chave, LocalDateTime.now().minus(VALIDADE));
+		} catch (DataAccessException e) {
+			// Sem a tabela (script não aplicado) a proteção fica só na memória
+			return null;
+		}
+		if (doBanco.isEmpty()) {
+			return null;
+		}
+		resposta = doBanco.get(0);
+		synchronized (memoria) {
+			memoria.put(id, resposta);
+		}
+		return resposta;
+	}
+
+	private Resposta daMemoria(String id) {
+		synchronized (memoria) {
+			Resposta resposta = memoria.get(id);
+			if (resposta != null && resposta.criadoEm().isBefore(LocalDateTime.now().minus(VALIDADE))) {
+				memoria.remove(id);
+				return null;
+			}
+			return resposta;
+		}
+	}
+
+	private Resposta guardar(String escopo, String chave, String id, String impressao, ResponseEntity<?> resultado) {
+		String corpo;
+		try {
+			corpo = objectMapper.writeValueAsString(resultado.getBody());
+		} catch (JsonProcessingException e) {
+			return null;
+		}
+		Resposta resposta = new Resposta(impressao, resultado.getStatusCode().value(), corpo, LocalDateTime.now());
+		synchronized (memoria) {
+			memoria.put(id, resposta);
+		}
+
+		try {
+			jdbcTemplate.update(
+					"INSERT INTO RequisicaoIdempotente (escopo, chave, impressao, statusHttp, resposta, criadoEm) " +
+					"VALUES (?, ?, ?, ?, ?, ?)",
+					escopo, chave, impressao, resposta.status(), corpo, resposta.criadoEm());
+			limparVencidas();
+		} catch (DuplicateKeyException e) {
+			// Outra instância guardou a mesma chave primeiro
+		} catch (DataAccessException e) {
+			// A resposta continua valendo pela memória
+		}
+		return resposta;
+	}
+
+	// No máximo uma vez por hora, aproveitando uma escrita
+	private void limparVencidas() {
+		long agora = System.currentTimeMillis();
+		long anterior = ultimaLimpeza.get();
+		if (agora - anterior < INTERVALO_LIMPEZA_MS || !ultimaLimpeza.compareAndSet(anterior, agora)) {
+			return;
+		}
+		jdbcTemplate.update("DELETE FROM RequisicaoIdempotente WHERE criadoEm < ?",
+				LocalDateTime.now().minus(VALIDADE));
+	}
+
+	private ResponseEntity<?> repetir(Resposta resposta, String impressao) {
+		if (!resposta.impressao().equals(impressao)) {
+			return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of(
+					"message", HEADER + " já usada com outro conteúdo",
+					"success", false));
+		}
+		return ResponseEntity.status(resposta.status())
+				.contentType(MediaType.APPLICATION_JSON)
+				.header("Idempotent-Replayed", "true")
+				.body(resposta.corpo());
+	}
+
+	private String impressao(Object requisicao) {
+		byte[] conteudo;
+		try {
+			conteudo = objectMapper.writeValueAsBytes(requisicao);
+		} catch (JsonProcessingException e) {
+			conteudo = String.valueOf(requisicao).getBytes(StandardCharsets.UTF_8);
+		}
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
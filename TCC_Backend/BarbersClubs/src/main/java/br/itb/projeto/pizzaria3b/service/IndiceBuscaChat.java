@@ -0,0 +1,236 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido das mensagens do chat, em memória: para cada termo, as
+ * mensagens que o contêm e quantas vezes.
+ *
+ * Os termos ignoram acento e caixa ("Não" e "nao" são o mesmo termo), perdem
+ * o plural simples e as palavras vazias do português ficam de fora. A busca
+ * exige todos os termos da consulta; o último vale também como prefixo, para
+ * "reemb" achar "reembolso". A ordem é por BM25 e, no empate, a mensagem mais
+ * recente primeiro.
+ *
+ * Cada mensagem recebe um ordinal na ordem de chegada e as listas dos termos
+ * guardam ordinais em arrays, sem um objeto por ocorrência. A interseção
+ * começa pelo termo mais raro. Remoções só marcam o ordinal e saem das
+ * estatísticas do BM25; o espaço volta quando o BuscaChatService troca o
+ * índice por um novo, o que a RetencaoChatService pede depois de apagar.
+ */
+public class IndiceBuscaChat {
+
+	public record Documento(int id, int conversaId, long seq, String tipo, int participanteId, String remetenteTipo,
+			String mensagem, LocalDateTime enviadaEm) {
+	}
+
+	public record Resultado(Documento documento, double pontuacao) {
+	}
+
+	public record Pagina(int total, List<Resultado> resultados) {
+	}
+
+	private static final int TAMANHO_MINIMO_PREFIXO = 3;
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+	private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+	private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+			"a", "o", "as", "os", "um", "uma", "uns", "umas", "de", "do", "da", "dos", "das", "em", "no", "na",
+			"nos", "nas", "por", "pelo", "pela", "para", "pra", "com", "sem", "e", "ou", "que", "se", "ao", "aos",
+			"me", "te", "lhe", "eu", "voce", "ele", "ela", "eles", "elas", "meu", "minha", "seu", "sua", "isso",
+			"isto", "esse", "essa", "este", "esta", "ja", "mais", "muito", "mas", "como", "foi", "ser", "tem",
+			"ha", "sim", "oi", "ola");
+
+	// Ordinais e frequências de um termo, em ordem crescente de ordinal
+	private static class Postagens {
+		int[] ordinais = new int[4];
+		short[] frequencias = new short[4];
+		int tamanho;
+
+		void adicionar(int ordinal, int frequencia) {
+			if (tamanho == ordinais.length) {
+				ordinais = Arrays.copyOf(ordinais, tamanho * 2);
+				frequencias = Arrays.copyOf(frequencias, tamanho * 2);
+			}
+			ordinais[tamanho] = ordinal;
+			frequencias[tamanho] = (short) Math.min(frequencia, Short.MAX_VALUE);
+			tamanho++;
+		}
+	}
+
+	private final List<Documento> documentos = new ArrayList<>();
+	private final List<Integer> tamanhos = new ArrayList<>();
+	private final Map<Integer, Integer> ordinalPorId = new HashMap<>();
+	private final BitSet removidos = new BitSet();
+	private final TreeMap<String, Postagens> termos = new TreeMap<>();
+	// Só das mensagens não removidas
+	private long somaTamanhos;
+	private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+	// false se a mensagem já estava no índice
+	public boolean adicionar(Documento documento) {
+		List<String> termosDocumento = termos(documento.mensagem());
+		Map<String, Integer> frequencias = new HashMap<>();
+		for (String termo : termosDocumento) {
+			frequencias.merge(termo, 1, Integer::sum);
+		}
+		trava.writeLock().lock();
+		try {
+			if (ordinalPorId.containsKey(documento.id())) {
+				return false;
+			}
+			int ordinal = documentos.size();
+			documentos.add(documento);
+			tamanhos.add(termosDocumento.size());
+			ordinalPorId.put(documento.id(), ordinal);
+			somaTamanhos += termosDocumento.size();
+			for (Map.Entry<String, Integer> frequencia : frequencias.entrySet()) {
+				termos.computeIfAbsent(frequencia.getKey(), termo -> new Postagens())
+						.adicionar(ordinal, frequencia.getValue());
+			}
+			return true;
+		} finally {
+			trava.writeLock().unlock();
+		}
+	}
+
+	public void remover(int id) {
+		trava.writeLock().lock();
+		try {
+			Integer ordinal = ordinalPorId.get(id);
+			if (ordinal != null && !removidos.get(ordinal)) {
+				removidos.set(ordinal);
+				somaTamanhos -= tamanhos.get(ordinal);
+			}
+		} finally {
+			trava.writeLock().unlock();
+		}
+	}
+
+	public int tamanho() {
+		trava.readLock().lock();
+		try {
+			return documentos.size() - removidos.cardinality();
+		} finally {
+			trava.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Página 'pagina' (a partir de 0) das mensagens com todos os termos de
+	 * 'consulta', opcionalmente só de uma conversa.
+	 */
+	public Pagina buscar(String consulta, Integer conversaId, int pagina, int tamanhoPagina) {
+		List<String> termosConsulta = new ArrayList<>(new LinkedHashSet<>(termos(consulta)));
+		if (termosConsulta.isEmpty()) {
+			return new Pagina(0, List.of());
+		}
+
+		trava.readLock().lock();
+		try {
+			int total = documentos.size() - removidos.cardinality();
+			double tamanhoMedio = total > 0 ? (double) somaTamanhos / total : 1;
+
+			// Cada termo vira um mapa ordinal -> frequência das não removidas; o último junta os termos com o prefixo
+			List<Map<Integer, Integer>> porTermo = new ArrayList<>();
+			for (int i = 0; i < termosConsulta.size(); i++) {
+				String termo = termosConsulta.get(i);
+				Map<Integer, Integer> ocorrencias = new HashMap<>();
+				if (i == termosConsulta.size() - 1 && termo.length() >= TAMANHO_MINIMO_PREFIXO) {
+					NavigableMap<String, Postagens> comPrefixo = termos.subMap(termo, true, termo + Character.MAX_VALUE, false);
+					for (Postagens postagens : comPrefixo.values()) {
+						juntar(ocorrencias, postagens, removidos);
+					}
+				} else {
+					Postagens postagens = termos.get(termo);
+					if (postagens != null) {
+						juntar(ocorrencias, postagens, removidos);
+					}
+				}
+				if (ocorrencias.isEmpty()) {
+					return new Pagina(0, List.of());
+				}
+				porTermo.add(ocorrencias);
+			}
+
+			// Interseção a partir do termo mais raro
+			porTermo.sort(Comparator.comparingInt(Map::size));
+			List<Resultado> encontrados = new ArrayList<>();
+			for (Map.Entry<Integer, Integer> candidato : porTermo.get(0).entrySet()) {
+				int ordinal = candidato.getKey();
+				Documento documento = documentos.get(ordinal);
+				if (conversaId != null && documento.conversaId() != conversaId) {
+					continue;
+				}
+				double pontuacao = 0;
+				boolean todos = true;
+				for (Map<Integer, Integer> ocorrencias : porTermo) {
+					Integer frequencia = ocorrencias.get(ordinal);
+					if (frequencia == null) {
+						todos = false;
+						break;
+					}
+					double idf = Math.log(1 + (total - ocorrencias.size() + 0.5) / (ocorrencias.size() + 0.5));
+					double normalizacao = K1 * (1 - B + B * tamanhos.get(ordinal) / tamanhoMedio);
+					pontuacao += idf * frequencia * (K1 + 1) / (frequencia + normalizacao);
+				}
+				if (todos) {
+					encontrados.add(new Resultado(documento, pontuacao));
+				}
+			}
+
+			encontrados.sort(Comparator.comparingDouble(Resultado::pontuacao).reversed()
+					.thenComparing(resultado -> resultado.documento().id(), Comparator.reverseOrder()));
+			int de = Math.min(pagina * tamanhoPagina, encontrados.size());
+			int ate = Math.min(de + tamanhoPagina, encontrados.size());
+			return new Pagina(encontrados.size(), new ArrayList<>(encontrados.subList(de, ate)));
+		} finally {
+			trava.readLock().unlock();
+		}
+	}
+
+	private static void juntar(Map<Integer, Integer> ocorrencias, Postagens postagens, BitSet removidos) {
+		for (int i = 0; i < postagens.tamanho; i++) {
+			if (removidos.get(postagens.ordinais[i])) {
+				continue;
+			}
+			ocorrencias.merge(postagens.ordinais[i], (int) postagens.frequencias[i], Integer::sum);
+		}
+	}
+
+	static List<String> termos(String texto) {
+		List<String> termos = new ArrayList<>();
+		if (texto == null) {
+			return termos;
+		}
+		String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+				.toLowerCase(Locale.ROOT);
+		for (String palavra : SEPARADORES.split(normalizado)) {
+			if (palavra.isEmpty() || PALAVRAS_VAZIAS.contains(palavra)) {
+				continue;
+			}
+			// Plural simples: "cortes" e "corte" são o mesmo termo
+			if (palavra.length() > 3 && palavra.endsWith("s") && !palavra.endsWith("ss")) {
+				palavra = palavra.substring(0, palavra.length() - 1);
+			}
+			termos.add(palavra);
+		}
+		return termos;
+	}
+}
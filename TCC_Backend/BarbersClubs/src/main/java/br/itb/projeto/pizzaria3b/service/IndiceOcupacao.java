@@ -0,0 +1,278 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Índice em memória dos horários ocupados (agendamentos Pendente/Confirmado)
+ * de cada barbeiro, separado por dia.
+ *
+ * Cada dia guarda os intervalos ordenados pelo início junto com a maior
+ * duração do dia, então a consulta de sobreposição só percorre os intervalos
+ * que começam entre (inicio - maiorDuracao) e fim.
+ *
+ * Para a busca de horários livres, cada dia também tem um mapa de bits em
+ * fatias de 5 minutos (288 por dia), montado sob demanda e descartado quando
+ * um agendamento daquele dia muda.
+ *
+ * A recarga monta um índice novo fora do ar e o troca de uma vez pelo atual.
+ * As mudanças feitas enquanto ela lê o banco entram no índice atual e ficam
+ * anotadas para serem repetidas no novo antes da troca, então nenhuma se perde.
+ */
+@Component
+public class IndiceOcupacao {
+
+	public static final int MINUTOS_POR_FATIA = 5;
+	public static final int FATIAS_POR_DIA = 24 * 60 / MINUTOS_POR_FATIA;
+
+	// Intervalo ocupado na agenda de um barbeiro: [inicio, fim)
+	public record Intervalo(Long agendamentoId, Long barbeiroId, LocalDateTime inicio, LocalDateTime fim) {
+
+		public boolean sobrepoe(LocalDateTime outroInicio, LocalDateTime outroFim) {
+			return inicio.isBefore(outroFim) && outroInicio.isBefore(fim);
+		}
+	}
+
+	private static final Comparator<Intervalo> POR_INICIO = Comparator
+			.comparing(Intervalo::inicio)
+			.thenComparing(Intervalo::agendamentoId);
+
+	// intervalo null = remoção do agendamento
+	private record Mudanca(Long agendamentoId, Intervalo intervalo) {
+	}
+
+	private final Object recarga = new Object();
+	private final Object mudancas = new Object();
+	private volatile Estado estado = new Estado();
+	private List<Mudanca> mudancasDuranteCarga = null;
+	private volatile boolean carregado = false;
+
+	public boolean isCarregado() {
+		return carregado;
+	}
+
+	// A fonte é lida já com as mudanças sendo anotadas, para cobrir o que mudar durante a consulta
+	public int carregar(Supplier<? extends Collection<Intervalo>> fonte) {
+		synchronized (recarga) {
+			synchronized (mudancas) {
+				mudancasDuranteCarga = new ArrayList<>();
+			}
+			try {
+				Collection<Intervalo> intervalos = fonte.get();
+				Estado novo = new Estado();
+				for (Intervalo intervalo : intervalos) {
+					novo.adicionar(intervalo);
+				}
+				synchronized (mudancas) {
+					for (Mudanca mudanca : mudancasDuranteCarga) {
+						novo.aplicar(mudanca);
+					}
+					estado = novo;
+				}
+				carregado = true;
+				return intervalos.size();
+			} finally {
+				synchronized (mudancas) {
+					mudancasDuranteCarga = null;
+				}
+			}
+		}
+	}
+
+	public void adicionar(Intervalo intervalo) {
+		mudar(new Mudanca(intervalo.agendamentoId(), intervalo));
+	}
+
+	public void remover(Long agendamentoId) {
+		mudar(new Mudanca(agendamentoId, null));
+	}
+
+	private void mudar(Mudanca mudanca) {
+		synchronized (mudancas) {
+			estado.aplicar(mudanca);
+			if (mudancasDuranteCarga != null) {
+				mudancasDuranteCarga.add(mudanca);
+			}
+		}
+	}
+
+	public boolean conflita(Long barbeiroId, LocalDateTime inicio, LocalDateTime fim) {
+		return conflita(barbeiroId, inicio, fim, null);
+	}
+
+	// Ignora o próprio agendamento, para reagendar dentro do horário que ele já ocupa
+	public boolean conflita(Long barbeiroId, LocalDateTime inicio, LocalDateTime fim, Long ignorarAgendamentoId) {
+		AgendaBarbeiro agenda = estado.agendas.get(barbeiroId);
+		return agenda != null && agenda.conflita(inicio, fim, ignorarAgendamentoId);
+	}
+
+	// Cópia do mapa de fatias ocupadas do dia: bit i = [i*5min, (i+1)*5min)
+	public long[] mapaOcupacao(Long barbeiroId, LocalDate dia) {
+		AgendaBarbeiro agenda = estado.agendas.get(barbeiroId);
+		return agenda != null ? agenda.mapa(dia).clone() : new long[tamanhoMapa()];
+	}
+
+	public static boolean livre(long[] mapa, int primeiraFatia, int quantidade) {
+		for (int fatia = primeiraFatia; fatia < primeiraFatia + quantidade; fatia++) {
+			if ((mapa[fatia >> 6] & (1L << (fatia & 63))) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int tamanhoMapa() {
+		return (FATIAS_POR_DIA + 63) / 64;
+	}
+
+	private static final class Estado {
+
+		private final Map<Long, AgendaBarbeiro> agendas = new ConcurrentHashMap<>();
+		private final Map<Long, Intervalo> porAgendamento = new ConcurrentHashMap<>();
+
+		void aplicar(Mudanca mudanca) {
+			if (mudanca.intervalo() != null) {
+				adicionar(mudanca.intervalo());
+				return;
+			}
+			Intervalo intervalo = porAgendamento.remove(mudanca.agendamentoId());
+			if (intervalo != null) {
+				agenda(intervalo.barbeiroId()).remover(intervalo);
+			}
+		}
+
+		void adicionar(Intervalo intervalo) {
+			Intervalo anterior = porAgendamento.put(intervalo.agendamentoId(), intervalo);
+			if (anterior != null) {
+				agenda(anterior.barbeiroId()).remover(anterior);
+			}
+			agenda(intervalo.barbeiroId()).adicionar(intervalo);
+		}
+
+		private AgendaBarbeiro agenda(Long barbeiroId) {
+			return agendas.computeIfAbsent(barbeiroId, id -> new AgendaBarbeiro());
+		}
+	}
+
+	private static final class AgendaBarbeiro {
+
+		private final Map<LocalDate, Dia> dias = new HashMap<>();
+		private final Map<LocalDate, long[]> mapas = new HashMap<>();
+
+		synchronized void adicionar(Intervalo intervalo) {
+			dias.computeIfAbsent(intervalo.inicio().toLocalDate(), d -> new Dia()).adicionar(intervalo);
+			descartarMapas(intervalo);
+		}
+
+		synchronized void remover(Intervalo intervalo) {
+			LocalDate data = intervalo.inicio().toLocalDate();
+			Dia dia = dias.get(data);
+			if (dia != null && dia.remover(intervalo) && dia.intervalos.isEmpty()) {
+				dias.remove(data);
+			}
+			descartarMapas(intervalo);
+		}
+
+		synchronized long[] mapa(LocalDate data) {
+			return mapas.computeIfAbsent(data, this::montarMapa);
+		}
+
+		private long[] montarMapa(LocalDate data) {
+			long[] mapa = new long[tamanhoMapa()];
+			LocalDateTime inicioDia = data.atStartOfDay();
+			LocalDateTime fimDia = inicioDia.plusDays(1);
+			for (LocalDate origem = data.minusDays(1); !origem.isAfter(data); origem = origem.plusDays(1)) {
+				Dia dia = dias.get(origem);
+				if (dia == null) {
+					continue;
+				}
+				for (Intervalo intervalo : dia.intervalos) {
+					if (!intervalo.sobrepoe(inicioDia, fimDia)) {
+						continue;
+					}
+					long de = Math.max(0, Duration.between(inicioDia, intervalo.inicio()).toMinutes());
+					long ate = Math.min(24 * 60, Duration.between(inicioDia, intervalo.fim()).toMinutes());
+					// Fatia parcialmente ocupada conta como ocupada
+					int primeira = (int) (de / MINUTOS_POR_FATIA);
+					int ultima = (int) ((ate + MINUTOS_POR_FATIA - 1) / MINUTOS_POR_FATIA);
+					for (int fatia = primeira; fatia < ultima; fatia++) {
+						mapa[fatia >> 6] |= 1L << (fatia & 63);
+					}
+				}
+			}
+			return mapa;
+		}
+
+		private void descartarMapas(Intervalo intervalo) {
+			for (LocalDate data = intervalo.inicio().toLocalDate(); !data.isAfter(intervalo.fim().toLocalDate()); data = data.plusDays(1)) {
+				mapas.remove(data);
+			}
+		}
+
+		synchronized boolean conflita(LocalDateTime inicio, LocalDateTime fim, Long ignorar) {
+			// Um agendamento iniciado no dia anterior pode atravessar a meia-noite
+			for (LocalDate data = inicio.toLocalDate().minusDays(1); !data.isAfter(fim.toLocalDate()); data = data.plusDays(1)) {
+				Dia dia = dias.get(data);
+				if (dia != null && dia.conflita(inicio, fim, ignorar)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static final class Dia {
+
+		private final TreeSet<Intervalo> intervalos = new TreeSet<>(POR_INICIO);
+		private long maiorDuracaoMinutos = 0;
+
+		void adicionar(Intervalo intervalo) {
+			intervalos.add(intervalo);
+			maiorDuracaoMinutos = Math.max(maiorDuracaoMinutos, duracao(intervalo));
+		}
+
+		boolean remover(Intervalo intervalo) {
+			boolean removido = intervalos.remove(intervalo);
+			if (removido && duracao(intervalo) == maiorDuracaoMinutos) {
+				maiorDuracaoMinutos = 0;
+				for (Intervalo restante : intervalos) {
+					maiorDuracaoMinutos = Math.max(maiorDuracaoMinutos, duracao(restante));
+				}
+			}
+			return removido;
+		}
+
+		boolean conflita(LocalDateTime inicio, LocalDateTime fim, Long ignorar) {
+			Intervalo de = sonda(inicio.minusMinutes(maiorDuracaoMinutos));
+			Intervalo ate = sonda(fim);
+			NavigableSet<Intervalo> candidatos = intervalos.subSet(de, true, ate, false);
+			for (Intervalo candidato : candidatos) {
+				if (candidato.sobrepoe(inicio, fim) && !candidato.agendamentoId().equals(ignorar)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static Intervalo sonda(LocalDateTime instante) {
+			return new Intervalo(Long.MIN_VALUE, null, instante, instante);
+		}
+
+		private static long duracao(Intervalo intervalo) {
+			return Duration.between(intervalo.inicio(), intervalo.fim()).toMinutes();
+		}
+	}
+}
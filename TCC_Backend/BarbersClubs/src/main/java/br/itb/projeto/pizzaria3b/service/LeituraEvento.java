@@ -0,0 +1,9 @@
+package br.itb.projeto.pizzaria3b.service;
+
+/**
+ * Publicado pelo ChatService quando mensagens de uma conversa são marcadas
+ * como lidas. leitor é quem leu ("admin" ou o tipo da conversa), ateSeq o
+ * último seq coberto e marcadas quantas mensagens mudaram de fato.
+ */
+public record LeituraEvento(Integer conversaId, String leitor, long ateSeq, int marcadas) {
+}
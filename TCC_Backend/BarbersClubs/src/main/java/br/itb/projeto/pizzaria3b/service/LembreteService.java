@@ -0,0 +1,134 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import br.itb.projeto.pizzaria3b.service.NotificadorLembrete.Lembrete;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Lembretes "seu corte é daqui a 1 hora" para agendamentos Confirmado.
+ *
+ * Em vez de consultar a tabela a cada minuto, os próximos lembretes ficam numa
+ * RodaTemporizacao em memória. A roda é carregada em faixas de uma hora, sempre
+ * mantendo as próximas JANELA horas, e os eventos de agendamento agendam,
+ * reagendam ou cancelam lembretes individuais.
+ *
+ * Carga, eventos e o giro da roda rodam todos na mesma thread.
+ */
+@Service
+public class LembreteService {
+
+	private static final Logger log = LoggerFactory.getLogger(LembreteService.class);
+
+	private static final Duration ANTECEDENCIA = Duration.ofHours(1);
+	private static final Duration JANELA = Duration.ofHours(24);
+	private static final Duration PASSO_CARGA = Duration.ofHours(1);
+	private static final long TICK_MS = 60 * 1000;
+	private static final int POSICOES = 512;
+	private static final String CONSULTA = "SELECT id, barbeiro_id, usuario_id, dataAgendamento FROM Agendamento " +
+			"WHERE statusAgendamento = 'Confirmado' ";
+
+	private static final RowMapper<Lembrete> LEMBRETE = (rs, rowNum) -> new Lembrete(
+			rs.getLong("id"),
+			rs.getLong("barbeiro_id"),
+			rs.getObject("usuario_id") != null ? rs.getLong("usuario_id") : null,
+			rs.getObject("dataAgendamento", LocalDateTime.class));
+
+	private JdbcTemplate jdbcTemplate;
+	private NotificadorLembrete notificador;
+
+	private final RodaTemporizacao<Long, Lembrete> roda = new RodaTemporizacao<>(TICK_MS, POSICOES,
+			System.currentTimeMillis());
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+		Thread thread = new Thread(tarefa, "lembretes");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// Agendamentos até este instante já estão na roda
+	private LocalDateTime carregadoAte;
+
+	public LembreteService(JdbcTemplate jdbcTemplate, NotificadorLembrete notificador) {
+		super();
+		this.jdbcTemplate = jdbcTemplate;
+		this.notificador = notificador;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void iniciar() {
+		executor.scheduleWithFixedDelay(this::girar, 0, TICK_MS, TimeUnit.MILLISECONDS);
+	}
+
+	@EventListener
+	public void aoAlterarAgendamento(AgendamentoEvento evento) {
+		executor.execute(() -> atualizar(evento.agendamentoId(), evento.status()));
+	}
+
+	private void girar() {
+		try {
+			LocalDateTime agora = LocalDateTime.now();
+			if (carregadoAte == null || agora.plus(JANELA).isAfter(carregadoAte.plus(PASSO_CARGA))) {
+				carregar(agora);
+			}
+			for (Lembrete lembrete : roda.avancar(System.currentTimeMillis())) {
+				if (lembrete.dataAgendamento().isAfter(agora)) {
+					notificador.notificar(lembrete);
+				}
+			}
+		} catch (Exception e) {
+			// Uma exceção aqui cancelaria as próximas execuções
+			log.error("Erro ao processar lembretes", e);
+		}
+	}
+
+	// Só a faixa nova desde a última carga; a roda já tem o resto
+	private void carregar(LocalDateTime agora) {
+		LocalDateTime de = carregadoAte != null ? carregadoAte : agora;
+		LocalDateTime ate = agora.plus(JANELA);
+		List<Lembrete> lembretes = jdbcTemplate.query(
+				CONSULTA + "AND dataAgendamento > ? AND dataAgendamento <= ?", LEMBRETE, de, ate);
+		lembretes.forEach(this::agendar);
+		carregadoAte = ate;
+	}
+
+	private void atualizar(Long agendamentoId, String status) {
+		roda.cancelar(agendamentoId);
+		// Antes da primeira carga, ou além da janela, a carga por faixas encontra o agendamento
+		if (!"Confirmado".equals(status) || carregadoAte == null) {
+			return;
+		}
+		try {
+			for (Lembrete lembrete : jdbcTemplate.query(CONSULTA + "AND id = ?", LEMBRETE, agendamentoId)) {
+				if (!lembrete.dataAgendamento().isAfter(carregadoAte)) {
+					agendar(lembrete);
+				}
+			}
+		} catch (Exception e) {
+			log.error("Erro ao agendar lembrete {}", agendamentoId, e);
+		}
+	}
+
+	private void agendar(Lembrete lembrete) {
+		long instante = lembrete.dataAgendamento().minus(ANTECEDENCIA)
+				.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		roda.agendar(lembrete.agendamentoId(), lembrete, instante);
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		executor.shutdownNow();
+	}
+}
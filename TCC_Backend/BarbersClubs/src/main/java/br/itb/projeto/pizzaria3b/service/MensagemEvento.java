@@ -0,0 +1,11 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.util.Map;
+
+/**
+ * Publicado pelo ChatService quando uma mensagem é gravada. conversa é o tipo
+ * da conversa, "cliente" ou "barbeiro", e participanteId é o cliente ou
+ * barbeiro que conversa com o admin; a mensagem traz conversa_id e seq.
+ */
+public record MensagemEvento(String conversa, Integer participanteId, Map<String, Object> mensagem) {
+}
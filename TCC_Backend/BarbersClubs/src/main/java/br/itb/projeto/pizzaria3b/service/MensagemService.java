@@ -78,11 +78,6 @@ public class MensagemService {
 		return mensagemRepository.findMensagensChatByUser(userId);
 	}
 	
-	@Transactional
-	public void salvarMensagemChat(String mensagem, int remetenteId, int destinatarioId) {
-		mensagemRepository.salvarMensagemChat(mensagem, remetenteId, destinatarioId);
-	}
-	
 }
 
 
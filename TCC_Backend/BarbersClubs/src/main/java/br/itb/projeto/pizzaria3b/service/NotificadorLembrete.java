@@ -0,0 +1,15 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Canal de entrega dos lembretes de agendamento. A implementação padrão só
+ * registra no log; para push ou WhatsApp basta outro bean marcado como @Primary.
+ */
+public interface NotificadorLembrete {
+
+	record Lembrete(Long agendamentoId, Long barbeiroId, Long usuarioId, LocalDateTime dataAgendamento) {
+	}
+
+	void notificar(Lembrete lembrete);
+}
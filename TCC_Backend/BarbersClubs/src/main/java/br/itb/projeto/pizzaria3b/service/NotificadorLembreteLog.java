@@ -0,0 +1,17 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class NotificadorLembreteLog implements NotificadorLembrete {
+
+	private static final Logger log = LoggerFactory.getLogger(NotificadorLembreteLog.class);
+
+	@Override
+	public void notificar(Lembrete lembrete) {
+		log.info("Lembrete: agendamento {} do usuário {} com o barbeiro {} às {}", lembrete.agendamentoId(),
+				lembrete.usuarioId(), lembrete.barbeiroId(), lembrete.dataAgendamento());
+	}
+}
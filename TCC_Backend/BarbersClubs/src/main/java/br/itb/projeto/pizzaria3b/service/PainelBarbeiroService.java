@@ -0,0 +1,101 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import br.itb.projeto.pizzaria3b.model.projection.AgendamentoBarbeiro;
+import br.itb.projeto.pizzaria3b.model.projection.UltimoCorte;
+import br.itb.projeto.pizzaria3b.model.repository.AgendamentoRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Monta o painel da tela inicial do barbeiro com as quatro consultas em
+ * paralelo e guarda o resultado por barbeiro até algum agendamento dele mudar.
+ */
+@Service
+public class PainelBarbeiroService {
+
+	private static final long VALIDADE_MS = 60 * 1000;
+
+	public record Painel(List<AgendamentoBarbeiro> pendentes, List<AgendamentoBarbeiro> confirmados,
+			UltimoCorte ultimoCorte, List<AgendamentoBarbeiro> agendamentos) {
+	}
+
+	private record Entrada(Painel painel, long geradoEm) {
+	}
+
+	private AgendamentoRepository agendamentoRepository;
+
+	private final Map<Long, Entrada> cache = new ConcurrentHashMap<>();
+	// Incrementada a cada invalidação do barbeiro; um painel montado antes dela não entra no cache
+	private final Map<Long, AtomicLong> geracoes = new ConcurrentHashMap<>();
+	private final ExecutorService executor = Executors.newFixedThreadPool(8, tarefa -> {
+		Thread thread = new Thread(tarefa, "painel-barbeiro");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public PainelBarbeiroService(AgendamentoRepository agendamentoRepository) {
+		super();
+		this.agendamentoRepository = agendamentoRepository;
+	}
+
+	public Painel buscar(Long barbeiroId) {
+		Entrada entrada = cache.get(barbeiroId);
+		if (entrada != null && System.currentTimeMillis() - entrada.geradoEm() < VALIDADE_MS) {
+			return entrada.painel();
+		}
+
+		AtomicLong geracao = geracao(barbeiroId);
+		long geracaoInicial = geracao.get();
+		CompletableFuture<List<AgendamentoBarbeiro>> pendentes = CompletableFuture.supplyAsync(
+				() -> agendamentoRepository.findAgendamentosPendentesByBarbeiroId(barbeiroId), executor);
+		CompletableFuture<List<AgendamentoBarbeiro>> confirmados = CompletableFuture.supplyAsync(
+				() -> agendamentoRepository.findAgendamentosConfirmadosByBarbeiroId(barbeiroId), executor);
+		CompletableFuture<UltimoCorte> ultimoCorte = CompletableFuture.supplyAsync(
+				() -> agendamentoRepository.findUltimoCorteOuAgendamentoByBarbeiroId(barbeiroId), executor);
+		CompletableFuture<List<AgendamentoBarbeiro>> agendamentos = CompletableFuture.supplyAsync(
+				() -> agendamentoRepository.findAgendamentosByBarbeiroId(barbeiroId), executor);
+
+		Painel painel;
+		try {
+			painel = new Painel(pendentes.join(), confirmados.join(), ultimoCorte.join(), agendamentos.join());
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException causa ? causa : e;
+		}
+
+		if (geracao.get() == geracaoInicial) {
+			Entrada nova = new Entrada(painel, System.currentTimeMillis());
+			cache.put(barbeiroId, nova);
+			// Invalidação entre a conferência e o put: tira de novo o que acabou de entrar
+			if (geracao.get() != geracaoInicial) {
+				cache.remove(barbeiroId, nova);
+			}
+		}
+		return painel;
+	}
+
+	@EventListener
+	public void aoAlterarAgendamento(AgendamentoEvento evento) {
+		geracao(evento.barbeiroId()).incrementAndGet();
+		cache.remove(evento.barbeiroId());
+	}
+
+	private AtomicLong geracao(Long barbeiroId) {
+		return geracoes.computeIfAbsent(barbeiroId, id -> new AtomicLong());
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		executor.shutdownNow();
+	}
+}
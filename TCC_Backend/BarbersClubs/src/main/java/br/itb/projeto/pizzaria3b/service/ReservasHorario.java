@@ -0,0 +1,153 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reservas provisórias de horário enquanto o cliente escolhe o serviço e
+ * confirma no app, para dois clientes não disputarem o mesmo POST final.
+ *
+ * Ficam só em memória, por barbeiro e horário de início, e nunca tocam o banco
+ * a não ser que virem agendamento. Cada acesso à agenda de um barbeiro
+ * descarta as reservas vencidas dela, e o token de toda reserva que sai da
+ * agenda sai junto do índice por token. Uma tarefa agendada faz o mesmo com os
+ * barbeiros que ninguém consultou de novo e tira as agendas vazias.
+ *
+ * As escritas de um barbeiro acontecem sob a trava dele no AgendamentoService,
+ * então as reservas de um mesmo barbeiro nunca se sobrepõem.
+ */
+@Component
+public class ReservasHorario {
+
+	public static final Duration VALIDADE = Duration.ofMinutes(5);
+
+	public record Reserva(String token, Long barbeiroId, Long usuarioId, LocalDateTime inicio, LocalDateTime fim,
+			LocalDateTime expiraEm) {
+
+		boolean vencida(LocalDateTime agora) {
+			return !expiraEm.isAfter(agora);
+		}
+	}
+
+	private final Map<Long, NavigableMap<LocalDateTime, Reserva>> porBarbeiro = new ConcurrentHashMap<>();
+	private final Map<String, Long> barbeiroPorToken = new ConcurrentHashMap<>();
+
+	// Reservas ainda válidas do barbeiro, ordenadas pelo início
+	public List<Reserva> ativas(Long barbeiroId) {
+		NavigableMap<LocalDateTime, Reserva> reservas = agenda(barbeiroId);
+		return reservas != null ? new ArrayList<>(reservas.values()) : List.of();
+	}
+
+	/**
+	 * Indica se outro cliente tem reserva válida sobrepondo [inicio, fim). A
+	 * reserva do próprio usuário não conta como conflito.
+	 */
+	public boolean conflita(Long barbeiroId, LocalDateTime inicio, LocalDateTime fim, Long usuarioId) {
+		NavigableMap<LocalDateTime, Reserva> reservas = agenda(barbeiroId);
+		if (reservas == null) {
+			return false;
+		}
+		// Sem sobreposição entre reservas, os fins crescem junto com os inícios
+		for (Reserva reserva : reservas.headMap(fim, false).descendingMap().values()) {
+			if (!reserva.fim().isAfter(inicio)) {
+				break;
+			}
+			if (!reserva.usuarioId().equals(usuarioId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Chamado sob a trava do barbeiro, depois de conferir agenda e reservas
+	Reserva reservar(Long barbeiroId, Long usuarioId, LocalDateTime inicio, LocalDateTime fim) {
+		consumir(barbeiroId, usuarioId);
+		LocalDateTime agora = LocalDateTime.now();
+		Reserva reserva = new Reserva(UUID.randomUUID().toString(), barbeiroId, usuarioId, inicio, fim,
+				agora.plus(VALIDADE));
+		barbeiroPorToken.put(reserva.token(), barbeiroId);
+		// Dentro do compute, para a limpeza não tirar a agenda entre a busca e o put
+		porBarbeiro.compute(barbeiroId, (id, reservas) -> {
+			NavigableMap<LocalDateTime, Reserva> agenda = reservas != null ? reservas : new ConcurrentSkipListMap<>();
+			descartarVencidas(agenda, agora);
+			// Uma reserva que ainda estivesse no mesmo início sai da agenda: o token dela sai junto
+			Reserva substituida = agenda.put(inicio, reserva);
+			if (substituida != null) {
+				barbeiroPorToken.remove(substituida.token());
+			}
+			return agenda;
+		});
+		return reserva;
+	}
+
+	public boolean liberar(String token) {
+		Long barbeiroId = barbeiroPorToken.remove(token);
+		if (barbeiroId == null) {
+			return false;
+		}
+		NavigableMap<LocalDateTime, Reserva> reservas = porBarbeiro.get(barbeiroId);
+		return reservas != null && reservas.values().removeIf(reserva -> reserva.token().equals(token));
+	}
+
+	// Cada cliente segura no máximo um horário por barbeiro; também usado quando a reserva vira agendamento
+	void consumir(Long barbeiroId, Long usuarioId) {
+		NavigableMap<LocalDateTime, Reserva> reservas = porBarbeiro.get(barbeiroId);
+		if (reservas == null) {
+			return;
+		}
+		reservas.values().removeIf(reserva -> {
+			if (reserva.usuarioId().equals(usuarioId)) {
+				barbeiroPorToken.remove(reserva.token());
+				return true;
+			}
+			return false;
+		});
+	}
+
+	@Scheduled(fixedDelayString = "${agendamento.reservas.limpeza-ms:60000}", initialDelay = 60 * 1000)
+	public void limpar() {
+		limpar(LocalDateTime.now());
+	}
+
+	void limpar(LocalDateTime agora) {
+		for (Long barbeiroId : porBarbeiro.keySet()) {
+			porBarbeiro.computeIfPresent(barbeiroId, (id, reservas) -> {
+				descartarVencidas(reservas, agora);
+				return reservas.isEmpty() ? null : reservas;
+			});
+		}
+	}
+
+	int tamanho() {
+		return barbeiroPorToken.size();
+	}
+
+	private NavigableMap<LocalDateTime, Reserva> agenda(Long barbeiroId) {
+		NavigableMap<LocalDateTime, Reserva> reservas = porBarbeiro.get(barbeiroId);
+		if (reservas == null || reservas.isEmpty()) {
+			return null;
+		}
+		descartarVencidas(reservas, LocalDateTime.now());
+		return reservas;
+	}
+
+	private void descartarVencidas(NavigableMap<LocalDateTime, Reserva> reservas, LocalDateTime agora) {
+		reservas.values().removeIf(reserva -> {
+			if (reserva.vencida(agora)) {
+				barbeiroPorToken.remove(reserva.token());
+				return true;
+			}
+			return false;
+		});
+	}
+}
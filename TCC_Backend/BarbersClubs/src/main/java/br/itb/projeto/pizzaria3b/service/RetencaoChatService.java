@@ -0,0 +1,239 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Retenção e limpeza das tabelas do chat sem travar quem está conversando.
+ *
+ * Cada política diz de qual tabela saem as linhas, com qual filtro, e se elas
+ * são apagadas ou arquivadas (DELETE ... OUTPUT INTO, como no
+ * ArquivoAgendamentoService). O trabalho anda em blocos pela chave id: cada
+ * bloco é um comando curto, abaixo do limite em que o SQL Server troca as
+ * travas de linha por uma trava da tabela, e o próximo bloco começa depois do
+ * último id visto, sem reler o que já foi percorrido. Entre um bloco e outro
+ * a limpeza espera pelo menos o tempo que o bloco levou, então o banco fica
+ * livre para os envios pelo menos metade do tempo.
+ *
+ * Linhas afetadas e progresso saem nas métricas chat.retencao.linhas,
+ * chat.retencao.blocos e chat.retencao.progresso, com a política como tag.
+ * Só uma limpeza roda por vez; quem pede outra recebe IllegalStateException.
+ */
+@Service
+public class RetencaoChatService {
+
+	private static final Logger log = LoggerFactory.getLogger(RetencaoChatService.class);
+
+	public record Politica(String nome, String tabela, String filtro, List<Object> parametros, String arquivo) {
+	}
+
+	private static final String MENSAGENS = "MensagemConversa";
+	private static final String MENSAGENS_ARQUIVO = "MensagemConversaArquivo";
+	private static final String[] COLUNAS_MENSAGEM = {
+			"id", "conversa_id", "seq", "mensagem", "remetente_tipo", "lida", "mensagemBot", "iniciadoEm" };
+	// O SQL Server escala para trava de tabela a partir de 5000 travas num comando
+	private static final int TAMANHO_MAXIMO_BLOCO = 4000;
+
+	private JdbcTemplate jdbcTemplate;
+	private BuscaChatService buscaChatService;
+	private CaixaEntradaService caixaEntradaService;
+	private ContadorNaoLidas contadorNaoLidas;
+	private MeterRegistry meterRegistry;
+	private int tamanhoBloco;
+	private long pausaMs;
+	private int maximoBlocos;
+	private int diasMensagens;
+	private boolean arquivarMensagens;
+	private int diasArquivo;
+
+	private final AtomicBoolean executando = new AtomicBoolean();
+	private final Map<String, AtomicLong> progresso = new ConcurrentHashMap<>();
+
+	public RetencaoChatService(JdbcTemplate jdbcTemplate, BuscaChatService buscaChatService,
+			CaixaEntradaService caixaEntradaService, ContadorNaoLidas contadorNaoLidas, MeterRegistry meterRegistry,
+			@Value("${chat.retencao.tamanho-bloco:1000}") int tamanhoBloco,
+			@Value("${chat.retencao.pausa-ms:200}") long pausaMs,
+			@Value("${chat.retencao.maximo-blocos:200}") int maximoBlocos,
+			@Value("${chat.retencao.mensagens.dias:0}") int diasMensagens,
+			@Value("${chat.retencao.mensagens.acao:arquivar}") String acaoMensagens,
+			@Value("${chat.retencao.arquivo.dias:0}") int diasArquivo) {
+		super();
+		this.jdbcTemplate = jdbcTemplate;
+		this.buscaChatService = buscaChatService;
+		this.caixaEntradaService = caixaEntradaService;
+		this.contadorNaoLidas = contadorNaoLidas;
+		this.meterRegistry = meterRegistry;
+		this.tamanhoBloco = Math.max(1, Math.min(tamanhoBloco, TAMANHO_MAXIMO_BLOCO));
+		this.pausaMs = Math.max(0, pausaMs);
+		this.maximoBlocos = Math.max(1, maximoBlocos);
+		this.diasMensagens = diasMensagens;
+		this.arquivarMensagens = !"apagar".equalsIgnoreCase(acaoMensagens);
+		this.diasArquivo = diasArquivo;
+	}
+
+	/**
+	 * Políticas da execução agendada: mensagens vazias sempre; mensagens e
+	 * arquivo antigos só com os dias configurados (0 guarda para sempre).
+	 */
+	public List<Politica> politicasAgendadas() {
+		List<Politica> politicas = new ArrayList<>();
+		politicas.add(mensagensVazias());
+		if (diasMensagens > 0) {
+			politicas.add(new Politica("mensagens-antigas", MENSAGENS, "iniciadoEm < ?",
+					List.of(LocalDate.now().minusDays(diasMensagens).atStartOfDay()),
+					arquivarMensagens ? MENSAGENS_ARQUIVO : null));
+		}
+		if (diasArquivo > 0) {
+			politicas.add(new Politica("arquivo-antigo", MENSAGENS_ARQUIVO, "iniciadoEm < ?",
+					List.of(LocalDate.now().minusDays(diasArquivo).atStartOfDay()), null));
+		}
+		return politicas;
+	}
+
+	@Scheduled(cron = "${chat.retencao.cron:0 0 4 * * *}")
+	public void executarAgendada() {
+		try {
+			executar(politicasAgendadas(), maximoBlocos);
+		} catch (IllegalStateException e) {
+			log.warn("Retenção do chat não executada: {}", e.getMessage());
+		} catch (RuntimeException e) {
+			log.error("Erro na retenção do chat", e);
+		}
+	}
+
+	// /api/chat/reset-chats: todas as mensagens das conversas com clientes
+	public int resetarConversasClientes() {
+		return executar(List.of(new Politica("reset-clientes", MENSAGENS,
+				"conversa_id IN (SELECT id FROM Conversa WHERE tipo = 'cliente')", List.of(), null)), Integer.MAX_VALUE);
+	}
+
+	// /api/chat/clean-empty-chats
+	public int apagarMensagensVazias() {
+		return executar(List.of(mensagensVazias()), Integer.MAX_VALUE);
+	}
+
+	private Politica mensagensVazias() {
+		return new Politica("mensagens-vazias", MENSAGENS, "mensagem IS NULL OR mensagem = ''", List.of(), null);
+	}
+
+	// Cada política tem até 'limiteBlocos' blocos nesta execução; o que sobrar fica para a próxima
+	public int executar(List<Politica> politicas, int limiteBlocos) {
+		if (!executando.compareAndSet(false, true)) {
+			throw new IllegalStateException("Limpeza do chat já em andamento");
+		}
+		boolean mensagensAlteradas = false;
+		int total = 0;
+		try {
+			for (Politica politica : politicas) {
+				int afetadas = executar(politica, limiteBlocos);
+				total += afetadas;
+				mensagensAlteradas |= afetadas > 0 && MENSAGENS.equals(politica.tabela());
+			}
+			return total;
+		} finally {
+			executando.set(false);
+			if (mensagensAlteradas) {
+				// Bloco a bloco as mensagens só foram marcadas como removidas na busca; o índice
+				// novo libera a memória delas. Caixa de entrada e badges são recontados
+				buscaChatService.carregar();
+				caixaEntradaService.invalidar();
+				contadorNaoLidas.recarregar();
+			}
+		}
+	}
+
+	private int executar(Politica politica, int limiteBlocos) {
+		String acao = politica.arquivo() != null ? "arquivar" : "apagar";
+		Counter linhas = Counter.builder("chat.retencao.linhas")
+				.description("Linhas apagadas ou arquivadas pela retenção do chat")
+				.tags("politica", politica.nome(), "acao", acao)
+				.register(meterRegistry);
+		Counter blocos = Counter.builder("chat.retencao.blocos")
+				.description("Blocos executados pela retenção do chat")
+				.tag("politica", politica.nome())
+				.register(meterRegistry);
+		AtomicLong andamento = progresso.computeIfAbsent(politica.nome(), nome ->
+				meterRegistry.gauge("chat.retencao.progresso", Tags.of("politica", nome), new AtomicLong()));
+		andamento.set(0);
+
+		String sql = sqlBloco(politica);
+		int ultimoId = 0;
+		int total = 0;
+		for (int bloco = 0; bloco < limiteBlocos; bloco++) {
+			List<Object> parametros = new ArrayList<>();
+			parametros.add(tamanhoBloco);
+			parametros.add(ultimoId);
+			parametros.addAll(politica.parametros());
+
+			long inicio = System.currentTimeMillis();
+			List<Integer> ids = jdbcTemplate.queryForList(sql, Integer.class, parametros.toArray());
+			long duracao = System.currentTimeMillis() - inicio;
+
+			blocos.increment();
+			linhas.increment(ids.size());
+			andamento.addAndGet(ids.size());
+			total += ids.size();
+			if (!ids.isEmpty()) {
+				ultimoId = ids.stream().mapToInt(Integer::intValue).max().getAsInt();
+				if (MENSAGENS.equals(politica.tabela())) {
+					buscaChatService.remover(ids);
+				}
+			}
+			if (ids.size() < tamanhoBloco || !pausar(Math.max(pausaMs, duracao))) {
+				break;
+			}
+		}
+		log.info("Retenção do chat ({}): {} linhas, ação {}", politica.nome(), total, acao);
+		return total;
+	}
+
+	/**
+	 * Um bloco: as próximas 'tamanho' linhas do filtro depois do último id,
+	 * apagadas (e copiadas para o arquivo, se houver) num único comando que
+	 * devolve os ids removidos.
+	 */
+	static String sqlBloco(Politica politica) {
+		StringBuilder sql = new StringBuilder()
+				.append("WITH bloco AS (SELECT TOP (?) * FROM ").append(politica.tabela())
+				.append(" WHERE id > ? AND (").append(politica.filtro()).append(") ORDER BY id) ")
+				.append("DELETE FROM bloco ");
+		if (politica.arquivo() != null) {
+			String colunas = String.join(", ", COLUNAS_MENSAGEM);
+			String colunasRemovidas = Arrays.stream(COLUNAS_MENSAGEM)
+					.map(coluna -> "DELETED." + coluna)
+					.collect(Collectors.joining(", "));
+			sql.append("OUTPUT ").append(colunasRemovidas)
+					.append(" INTO ").append(politica.arquivo()).append(" (").append(colunas).append(") ");
+		}
+		return sql.append("OUTPUT DELETED.id").toString();
+	}
+
+	// Deixa os envios do chat passarem entre um bloco e outro
+	private boolean pausar(long ms) {
+		try {
+			Thread.sleep(ms);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Roda de temporização com hash: um vetor circular de posições, cada uma com
+ * uma lista duplamente ligada das tarefas que vencem naquele giro do ponteiro.
+ *
+ * Agendar, cancelar e reagendar são O(1). Avançar custa o número de posições
+ * percorridas mais as tarefas encontradas nelas; tarefas que só vencem em
+ * voltas futuras ficam na lista e são puladas.
+ *
+ * Não é thread-safe: quem usa deve chamar sempre da mesma thread.
+ */
+public final class RodaTemporizacao<K, V> {
+
+	private static final class Tarefa<K, V> {
+		final K chave;
+		final V valor;
+		final long prazoTick;
+		final int posicao;
+		Tarefa<K, V> anterior;
+		Tarefa<K, V> proxima;
+
+		Tarefa(K chave, V valor, long prazoTick, int posicao) {
+			this.chave = chave;
+			this.valor = valor;
+			this.prazoTick = prazoTick;
+			this.posicao = posicao;
+		}
+	}
+
+	private final long duracaoTickMs;
+	private final Tarefa<K, V>[] posicoes;
+	private final Map<K, Tarefa<K, V>> porChave = new HashMap<>();
+	// Próximo tick ainda não processado
+	private long tickAtual;
+
+	@SuppressWarnings("unchecked")
+	public RodaTemporizacao(long duracaoTickMs, int numeroPosicoes, long agoraMs) {
+		this.duracaoTickMs = duracaoTickMs;
+		this.posicoes = new Tarefa[numeroPosicoes];
+		this.tickAtual = agoraMs / duracaoTickMs;
+	}
+
+	public int tamanho() {
+		return porChave.size();
+	}
+
+	public boolean contem(K chave) {
+		return porChave.containsKey(chave);
+	}
+
+	/**
+	 * Agenda o valor para o instante informado, substituindo o que já
+	 * estiver agendado com a mesma chave. Instantes no passado vencem no
+	 * próximo avanço.
+	 */
+	public void agendar(K chave, V valor, long instanteMs) {
+		cancelar(chave);
+		long prazoTick = Math.max(instanteMs / duracaoTickMs, tickAtual);
+		int posicao = (int) (prazoTick % posicoes.length);
+		Tarefa<K, V> tarefa = new Tarefa<>(chave, valor, prazoTick, posicao);
+		tarefa.proxima = posicoes[posicao];
+		if (tarefa.proxima != null) {
+			tarefa.proxima.anterior = tarefa;
+		}
+		posicoes[posicao] = tarefa;
+		porChave.put(chave, tarefa);
+	}
+
+	public boolean cancelar(K chave) {
+		Tarefa<K, V> tarefa = porChave.remove(chave);
+		if (tarefa == null) {
+			return false;
+		}
+		desligar(tarefa);
+		return true;
+	}
+
+	/**
+	 * Avança o ponteiro até o instante informado e devolve os valores
+	 * vencidos, que saem da roda.
+	 */
+	public List<V> avancar(long agoraMs) {
+		long alvo = agoraMs / duracaoTickMs;
+		List<V> vencidos = new ArrayList<>();
+		// Depois de uma volta completa todas as posições já foram vistas
+		long ultimoTick = Math.min(alvo, tickAtual + posicoes.length - 1);
+		for (long tick = tickAtual; tick <= ultimoTick; tick++) {
+			Tarefa<K, V> tarefa = posicoes[(int) (tick % posicoes.length)];
+			while (tarefa != null) {
+				Tarefa<K, V> proxima = tarefa.proxima;
+				if (tarefa.prazoTick <= alvo) {
+					porChave.remove(tarefa.chave);
+					desligar(tarefa);
+					vencidos.add(tarefa.valor);
+				}
+				tarefa = proxima;
+			}
+		}
+		tickAtual = Math.max(tickAtual, alvo + 1);
+		return vencidos;
+	}
+
+	private void desligar(Tarefa<K, V> tarefa) {
+		if (tarefa.anterior != null) {
+			tarefa.anterior.proxima = tarefa.proxima;
+		} else {
+			posicoes[tarefa.posicao] = tarefa.proxima;
+		}
+		if (tarefa.proxima != null) {
+			tarefa.proxima.anterior = tarefa.anterior;
+		}
+		tarefa.anterior = null;
+		tarefa.proxima = null;
+	}
+}
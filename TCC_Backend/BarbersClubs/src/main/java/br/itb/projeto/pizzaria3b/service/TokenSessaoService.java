@@ -0,0 +1,99 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Token devolvido no login: tipo e id de quem entrou, validade e uma
+ * assinatura HMAC-SHA256 com o segredo do servidor (app.sessao.segredo).
+ *
+ * O WebSocket do chat confere o token no CONNECT para saber quem pode assinar
+ * cada tópico. Sem segredo configurado, um aleatório é gerado na subida e os
+ * tokens emitidos antes de um reinício deixam de valer.
+ */
+@Service
+public class TokenSessaoService {
+
+	private static final Logger log = LoggerFactory.getLogger(TokenSessaoService.class);
+
+	public record Sessao(String tipo, int id) {
+
+		public boolean isAdmin() {
+			return ChatService.ADMIN.equals(tipo);
+		}
+	}
+
+	private static final Duration VALIDADE = Duration.ofDays(30);
+	private static final String ALGORITMO = "HmacSHA256";
+
+	private final SecretKeySpec chave;
+
+	public TokenSessaoService(@Value("${app.sessao.segredo:}") String segredo) {
+		super();
+		byte[] bytes;
+		if (segredo == null || segredo.isBlank()) {
+			bytes = new byte[32];
+			new SecureRandom().nextBytes(bytes);
+			log.warn("app.sessao.segredo não configurado: tokens valem só até o próximo reinício");
+		} else {
+			bytes = segredo.getBytes(StandardCharsets.UTF_8);
+		}
+		this.chave = new SecretKeySpec(bytes, ALGORITMO);
+	}
+
+	public String gerar(String tipo, Object id) {
+		long expiraEm = System.currentTimeMillis() / 1000 + VALIDADE.toSeconds();
+		String corpo = tipo + ":" + id + ":" + expiraEm;
+		Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+		return base64.encodeToString(corpo.getBytes(StandardCharsets.UTF_8)) + "." + base64.encodeToString(assinar(corpo));
+	}
+
+	// null se o token não foi emitido por este servidor ou já venceu
+	public Sessao validar(String token) {
+		if (token == null) {
+			return null;
+		}
+		if (token.startsWith("Bearer ")) {
+			token = token.substring("Bearer ".length());
+		}
+		int ponto = token.indexOf('.');
+		if (ponto < 0) {
+			return null;
+		}
+		try {
+			Base64.Decoder base64 = Base64.getUrlDecoder();
+			String corpo = new String(base64.decode(token.substring(0, ponto)), StandardCharsets.UTF_8);
+			if (!MessageDigest.isEqual(assinar(corpo), base64.decode(token.substring(ponto + 1)))) {
+				return null;
+			}
+			String[] partes = corpo.split(":");
+			if (partes.length != 3 || Long.parseLong(partes[2]) < System.currentTimeMillis() / 1000) {
+				return null;
+			}
+			return new Sessao(partes[0], Integer.parseInt(partes[1]));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private byte[] assinar(String corpo) {
+		try {
+			Mac mac = Mac.getInstance(ALGORITMO);
+			mac.init(chave);
+			return mac.doFinal(corpo.getBytes(StandardCharsets.UTF_8));
+		} catch (Exception e) {
+			throw new IllegalStateException("HMAC indisponível", e);
+		}
+	}
+}
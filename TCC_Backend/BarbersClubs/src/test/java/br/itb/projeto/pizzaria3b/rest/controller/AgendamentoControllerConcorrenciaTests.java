@@ -0,0 +1,157 @@
+package br.itb.projeto.pizzaria3b.rest.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.itb.projeto.pizzaria3b.model.repository.AgendamentoRepository;
+import br.itb.projeto.pizzaria3b.model.repository.BarbeiroRepository;
+import br.itb.projeto.pizzaria3b.service.AgendamentoService;
+import br.itb.projeto.pizzaria3b.service.IdempotenciaService;
+import br.itb.projeto.pizzaria3b.service.IndiceOcupacao;
+import br.itb.projeto.pizzaria3b.service.ReservasHorario;
+
+class AgendamentoControllerConcorrenciaTests {
+
+	private static final int BARBEIROS = 20;
+	private static final int TENTATIVAS_POR_BARBEIRO = 150;
+
+	private AgendamentoRepository agendamentoRepository;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		agendamentoRepository = mock(AgendamentoRepository.class);
+		AtomicLong ids = new AtomicLong();
+		when(agendamentoRepository.findAgendamentosAtivosAPartirDe(any())).thenReturn(List.of());
+		when(agendamentoRepository.findDuracaoServico(anyLong())).thenReturn(30);
+		// Sem banco real: o insert sempre "consegue", então só a trava + índice separam os vencedores
+		when(agendamentoRepository.criarAgendamento(anyLong(), anyLong(), any(), any(), anyLong()))
+				.thenAnswer(invocation -> ids.incrementAndGet());
+
+		mockMvc = montar(agendamentoRepository);
+	}
+
+	private static MockMvc montar(AgendamentoRepository agendamentoRepository) {
+		AgendamentoService agendamentoService = new AgendamentoService(agendamentoRepository, mock(BarbeiroRepository.class),
+				mock(JdbcTemplate.class), new IndiceOcupacao(), new ReservasHorario(), mock(ApplicationEventPublisher.class),
+				mock(PlatformTransactionManager.class));
+		agendamentoService.carregarIndiceOcupacao();
+
+		AgendamentoController controller = new AgendamentoController();
+		ReflectionTestUtils.setField(controller, "agendamentoRepository", agendamentoRepository);
+		ReflectionTestUtils.setField(controller, "agendamentoService", agendamentoService);
+		ReflectionTestUtils.setField(controller, "idempotenciaService",
+				new IdempotenciaService(mock(JdbcTemplate.class), new ObjectMapper()));
+		return MockMvcBuilders.standaloneSetup(controller).build();
+	}
+
+	private static String corpo(long barbeiroId, long usuarioId, String inicio) {
+		return "{\"servico_id\": 1, \"barbeiro_id\": " + barbeiroId + ", \"usuario_id\": " + usuarioId
+				+ ", \"dataAgendamento\": \"" + inicio + ".000Z\"}";
+	}
+
+	// Outra instância gravou o horário: o NOT EXISTS com UPDLOCK/HOLDLOCK não insere e não devolve id
+	@Test
+	void insertCondicionalSemLinhaViraHorarioOcupado() throws Exception {
+		when(agendamentoRepository.criarAgendamento(anyLong(), anyLong(), any(), any(), anyLong())).thenReturn(null, 42L);
+
+		mockMvc.perform(post("/api/agendamentos").contentType(MediaType.APPLICATION_JSON)
+				.content(corpo(3, 1, "2030-05-10T19:00:00")))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.success").value(false))
+				.andExpect(jsonPath("$.message").value("Este horário já está ocupado"));
+
+		// O horário recusado não entrou no índice em memória: a próxima tentativa chega ao banco
+		mockMvc.perform(post("/api/agendamentos").contentType(MediaType.APPLICATION_JSON)
+				.content(corpo(3, 2, "2030-05-10T19:00:00")))
+				.andExpect(status().isOk());
+	}
+
+	// Corrida entre instâncias que passou pelo NOT EXISTS: o índice único filtrado recusa a segunda linha
+	@Test
+	void indiceUnicoDoBancoViraHorarioOcupado() throws Exception {
+		AgendamentoRepository repositorio = mock(AgendamentoRepository.class);
+		when(repositorio.findAgendamentosAtivosAPartirDe(any())).thenReturn(List.of());
+		when(repositorio.findDuracaoServico(anyLong())).thenReturn(30);
+		when(repositorio.criarAgendamento(anyLong(), anyLong(), any(), any(), anyLong()))
+				.thenThrow(new DataIntegrityViolationException("UX_Agendamento_Barbeiro_Horario_Ativo"));
+		MockMvc mvc = montar(repositorio);
+
+		mvc.perform(post("/api/agendamentos").contentType(MediaType.APPLICATION_JSON)
+				.content(corpo(4, 1, "2030-05-10T19:00:00")))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.success").value(false))
+				.andExpect(jsonPath("$.message").value("Este horário já está ocupado"));
+	}
+
+	@Test
+	void apenasUmAgendamentoPorHorarioSobConcorrencia() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(64);
+		CountDownLatch largada = new CountDownLatch(1);
+		AtomicInteger sucessos = new AtomicInteger();
+		List<Future<?>> tarefas = new ArrayList<>();
+
+		for (int tentativa = 0; tentativa < TENTATIVAS_POR_BARBEIRO; tentativa++) {
+			for (int barbeiro = 1; barbeiro <= BARBEIROS; barbeiro++) {
+				// Inícios alternados em 19:00 e 19:15 se sobrepõem com serviços de 30 minutos
+				String inicio = tentativa % 2 == 0 ? "2030-05-10T19:00:00" : "2030-05-10T19:15:00";
+				String corpo = "{\"servico_id\": 1, \"barbeiro_id\": " + barbeiro
+						+ ", \"usuario_id\": " + (tentativa + 1)
+						+ ", \"dataAgendamento\": \"" + inicio + ".000Z\"}";
+				tarefas.add(executor.submit(() -> {
+					largada.await();
+					int status = mockMvc.perform(post("/api/agendamentos")
+							.contentType(MediaType.APPLICATION_JSON)
+							.content(corpo))
+							.andReturn().getResponse().getStatus();
+					if (status == 200) {
+						sucessos.incrementAndGet();
+					}
+					return null;
+				}));
+			}
+		}
+
+		largada.countDown();
+		for (Future<?> tarefa : tarefas) {
+			tarefa.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertEquals(BARBEIROS, sucessos.get());
+		verify(agendamentoRepository, times(BARBEIROS))
+				.criarAgendamento(anyLong(), anyLong(), any(LocalDateTime.class), any(LocalDateTime.class), anyLong());
+	}
+}
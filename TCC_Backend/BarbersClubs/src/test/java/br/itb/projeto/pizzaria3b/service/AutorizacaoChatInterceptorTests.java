@@ -0,0 +1,43 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import br.itb.projeto.pizzaria3b.service.TokenSessaoService.Sessao;
+
+class AutorizacaoChatInterceptorTests {
+
+	@Test
+	void tokenSoValeComAAssinaturaDoServidor() {
+		TokenSessaoService tokens = new TokenSessaoService("segredo de teste");
+		String token = tokens.gerar(ChatService.BARBEIRO, 7);
+
+		assertEquals(new Sessao(ChatService.BARBEIRO, 7), tokens.validar("Bearer " + token));
+		assertNull(new TokenSessaoService("outro segredo").validar(token));
+		assertNull(tokens.validar("token-1718000000000"));
+		// Trocar o corpo sem refazer a assinatura
+		String adulterado = tokens.gerar(ChatService.ADMIN, 1).split("\\.")[0] + "." + token.split("\\.")[1];
+		assertNull(tokens.validar(adulterado));
+	}
+
+	@Test
+	void cadaUmAssinaSoAPropriaConversaEOAdminTodas() {
+		Sessao barbeiro = new Sessao(ChatService.BARBEIRO, 7);
+		Sessao admin = new Sessao(ChatService.ADMIN, 1);
+
+		assertTrue(AutorizacaoChatInterceptor.podeAssinar(barbeiro, "/topic/chat/barbeiro/7"));
+		assertFalse(AutorizacaoChatInterceptor.podeAssinar(barbeiro, "/topic/chat/barbeiro/8"));
+		assertFalse(AutorizacaoChatInterceptor.podeAssinar(barbeiro, "/topic/chat/cliente/7"));
+		assertFalse(AutorizacaoChatInterceptor.podeAssinar(barbeiro, "/topic/chat/admin"));
+		assertFalse(AutorizacaoChatInterceptor.podeAssinar(barbeiro, "/topic/chat/barbeiro/*"));
+		assertFalse(AutorizacaoChatInterceptor.podeAssinar(null, "/topic/chat/barbeiro/7"));
+
+		assertTrue(AutorizacaoChatInterceptor.podeAssinar(admin, "/topic/chat/admin"));
+		assertTrue(AutorizacaoChatInterceptor.podeAssinar(admin, "/topic/chat/cliente/3"));
+		assertFalse(AutorizacaoChatInterceptor.podeAssinar(admin, "/topic/outro"));
+	}
+}
@@ -0,0 +1,57 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+class BuscaChatServiceTests {
+
+	@Test
+	void remocaoDuranteACargaNaoVoltaNoIndiceNovo() throws Exception {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		BuscaChatService busca = new BuscaChatService(jdbcTemplate);
+
+		// A limpeza apaga a mensagem 1 depois de o SELECT da carga já tê-la lido
+		doAnswer(invocation -> {
+			RowCallbackHandler linhas = invocation.getArgument(1);
+			linhas.processRow(linha(1, "corte de sábado"));
+			linhas.processRow(linha(2, "corte de domingo"));
+			busca.remover(List.of(1));
+			return null;
+		}).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+		busca.carregar();
+
+		assertEquals(1, busca.buscar("corte", null, 0, 10).total());
+		assertEquals(0, busca.buscar("sabado", null, 0, 10).total());
+	}
+
+	@Test
+	void tamanhoDaPaginaFicaEntreUmECem() {
+		assertEquals(1, BuscaChatService.tamanhoPagina(0));
+		assertEquals(20, BuscaChatService.tamanhoPagina(20));
+		assertEquals(100, BuscaChatService.tamanhoPagina(5000));
+	}
+
+	private static ResultSet linha(int id, String mensagem) throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getInt("id")).thenReturn(id);
+		when(rs.getInt("conversa_id")).thenReturn(10);
+		when(rs.getLong("seq")).thenReturn((long) id);
+		when(rs.getString("tipo")).thenReturn(ChatService.CLIENTE);
+		when(rs.getInt("participante_id")).thenReturn(3);
+		when(rs.getString("remetente_tipo")).thenReturn(ChatService.CLIENTE);
+		when(rs.getString("mensagem")).thenReturn(mensagem);
+		return rs;
+	}
+}
@@ -0,0 +1,101 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import br.itb.projeto.pizzaria3b.rest.exception.ResourceNotFoundException;
+
+class BuscaHorarioProximoServiceTests {
+
+	private static final long CORTE = 1L;
+	private static final long BARBA_SO_NA_BARBEARIA_10 = 2L;
+
+	private JdbcTemplate jdbcTemplate;
+	private AgendamentoService agendamentoService;
+	private BuscaHorarioProximoService busca;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() throws Exception {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		agendamentoService = mock(AgendamentoService.class);
+		busca = new BuscaHorarioProximoService(jdbcTemplate, agendamentoService);
+
+		// Barbeiro 1 na barbearia 10 e barbeiro 2 na barbearia 20, as duas a menos de 2 km
+		when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenAnswer(invocation -> {
+			RowMapper<Object> mapper = invocation.getArgument(1);
+			List<Object> barbeiros = new ArrayList<>();
+			barbeiros.add(mapper.mapRow(linha(1, 10, -23.55, -46.63), 0));
+			barbeiros.add(mapper.mapRow(linha(2, 20, -23.56, -46.64), 1));
+			return barbeiros;
+		});
+		when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(CORTE))).thenReturn(nulo());
+		when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(BARBA_SO_NA_BARBEARIA_10))).thenReturn(List.of(10L));
+		when(agendamentoService.disponibilidade(anyLong(), anyLong(), any(), any(), anyInt()))
+				.thenAnswer(invocation -> List.of(((LocalDate) invocation.getArgument(2)).atTime(10, 0)));
+	}
+
+	@Test
+	void servicoDeUmaBarbeariaSoSugereBarbeirosDela() {
+		List<BuscaHorarioProximoService.Sugestao> sugestoes = busca.buscar(-23.55, -46.63, 10, BARBA_SO_NA_BARBEARIA_10, 20);
+
+		assertEquals(7, sugestoes.size());
+		sugestoes.forEach(sugestao -> assertEquals(10L, sugestao.barbeariaId()));
+
+		// Serviço sem barbearia vale para as duas
+		assertEquals(14, busca.buscar(-23.55, -46.63, 10, CORTE, 20).size());
+	}
+
+	@Test
+	void agendaIndisponivelNaoViraListaVazia() {
+		doThrow(new IllegalStateException("Agenda indisponível no momento"))
+				.when(agendamentoService).disponibilidade(anyLong(), anyLong(), any(), any(), anyInt());
+
+		assertThrows(IllegalStateException.class, () -> busca.buscar(-23.55, -46.63, 10, CORTE, 20));
+	}
+
+	@Test
+	void barbeiroRemovidoDesdeOCacheEPulado() {
+		doThrow(new ResourceNotFoundException("Barbeiro não encontrado"))
+				.when(agendamentoService).disponibilidade(eq(2L), anyLong(), any(), any(), anyInt());
+
+		List<BuscaHorarioProximoService.Sugestao> sugestoes = busca.buscar(-23.55, -46.63, 10, CORTE, 20);
+		assertEquals(7, sugestoes.size());
+		sugestoes.forEach(sugestao -> assertEquals(1L, sugestao.barbeiroId()));
+	}
+
+	private static ResultSet linha(long barbeiroId, long barbeariaId, double latitude, double longitude) throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong("barbeiro_id")).thenReturn(barbeiroId);
+		when(rs.getString("barbeiro_nome")).thenReturn("Barbeiro " + barbeiroId);
+		when(rs.getLong("barbearia_id")).thenReturn(barbeariaId);
+		when(rs.getString("barbearia_nome")).thenReturn("Barbearia " + barbeariaId);
+		when(rs.getDouble("latitude")).thenReturn(latitude);
+		when(rs.getDouble("longitude")).thenReturn(longitude);
+		return rs;
+	}
+
+	private static List<Long> nulo() {
+		List<Long> lista = new ArrayList<>();
+		lista.add(null);
+		return lista;
+	}
+}
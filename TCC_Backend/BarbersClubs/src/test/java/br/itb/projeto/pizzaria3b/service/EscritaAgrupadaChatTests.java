@@ -0,0 +1,95 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import br.itb.projeto.pizzaria3b.service.ChatService.Conversa;
+import br.itb.projeto.pizzaria3b.service.ChatService.Envio;
+
+class EscritaAgrupadaChatTests {
+
+	private static final Conversa CONVERSA = new Conversa(7, ChatService.BARBEIRO, 3);
+
+	@Test
+	void rajadaViraPoucosLotesECadaRemetenteRecebeASuaMensagem() throws Exception {
+		ChatService chatService = mock(ChatService.class);
+		AtomicInteger lotes = new AtomicInteger();
+		when(chatService.enviarLote(anyList())).thenAnswer(invocation -> {
+			lotes.incrementAndGet();
+			List<Envio> envios = invocation.getArgument(0);
+			List<Map<String, Object>> enviadas = new ArrayList<>();
+			for (Envio envio : envios) {
+				enviadas.add(Map.of("message", envio.mensagem()));
+			}
+			return enviadas;
+		});
+		EscritaAgrupadaChat escrita = new EscritaAgrupadaChat(chatService, true, 200, 200, 100, 2000);
+
+		ExecutorService executor = Executors.newFixedThreadPool(20);
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<Map<String, Object>>> envios = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			String texto = "mensagem " + i;
+			envios.add(executor.submit(() -> {
+				largada.await();
+				return escrita.enviar(CONVERSA, false, texto);
+			}));
+		}
+		largada.countDown();
+		for (int i = 0; i < 20; i++) {
+			assertEquals("mensagem " + i, envios.get(i).get().get("message"));
+		}
+		// Janela de 200 ms: a rajada inteira cabe em um ou dois lotes, não em 20 gravações
+		assertTrue(lotes.get() <= 2, "lotes: " + lotes.get());
+
+		executor.shutdown();
+		escrita.encerrar();
+	}
+
+	@Test
+	void loteComErroGravaUmaAUmaESoAMensagemRuimFalha() throws Exception {
+		ChatService chatService = mock(ChatService.class);
+		when(chatService.enviarLote(anyList())).thenThrow(new IllegalArgumentException("mensagem longa demais"));
+		when(chatService.enviar(any(), anyBoolean(), eq("ok"))).thenReturn(Map.of("message", "ok"));
+		when(chatService.enviar(any(), anyBoolean(), eq("ruim"))).thenThrow(new IllegalArgumentException("mensagem longa demais"));
+		EscritaAgrupadaChat escrita = new EscritaAgrupadaChat(chatService, true, 5, 200, 100, 2000);
+
+		assertEquals("ok", escrita.enviar(CONVERSA, true, "ok").get("message"));
+		assertThrows(IllegalArgumentException.class, () -> escrita.enviar(CONVERSA, true, "ruim"));
+
+		escrita.encerrar();
+	}
+
+	@Test
+	void erroQuePodeTerVindoDepoisDoCommitNaoRegravaOLote() throws Exception {
+		ChatService chatService = mock(ChatService.class);
+		when(chatService.enviarLote(anyList())).thenThrow(new QueryTimeoutException("tempo esgotado no commit"));
+		EscritaAgrupadaChat escrita = new EscritaAgrupadaChat(chatService, true, 5, 200, 100, 2000);
+
+		assertThrows(QueryTimeoutException.class, () -> escrita.enviar(CONVERSA, true, "ok"));
+		verify(chatService, never()).enviar(any(), anyBoolean(), any());
+
+		escrita.encerrar();
+	}
+}
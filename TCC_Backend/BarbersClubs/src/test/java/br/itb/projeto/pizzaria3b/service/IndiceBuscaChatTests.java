@@ -0,0 +1,90 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import br.itb.projeto.pizzaria3b.service.IndiceBuscaChat.Documento;
+import br.itb.projeto.pizzaria3b.service.IndiceBuscaChat.Pagina;
+import br.itb.projeto.pizzaria3b.service.IndiceBuscaChat.Resultado;
+
+class IndiceBuscaChatTests {
+
+	private static Documento mensagem(int id, int conversaId, String texto) {
+		return new Documento(id, conversaId, id, ChatService.CLIENTE, conversaId, ChatService.CLIENTE, texto,
+				LocalDateTime.of(2026, 1, 1, 10, 0).plusMinutes(id));
+	}
+
+	private static List<Integer> ids(Pagina pagina) {
+		return pagina.resultados().stream().map(Resultado::documento).map(Documento::id).toList();
+	}
+
+	@Test
+	void ignoraAcentoCaixaEPluralEExigeTodosOsTermos() {
+		IndiceBuscaChat indice = new IndiceBuscaChat();
+		indice.adicionar(mensagem(1, 10, "Quero remarcar o horário do CORTE"));
+		indice.adicionar(mensagem(2, 10, "Os cortes de sábado estão cheios"));
+		indice.adicionar(mensagem(3, 11, "Horario de sabado?"));
+
+		assertEquals(List.of(2, 1), ids(indice.buscar("corte", null, 0, 10)));
+		assertEquals(List.of(3), ids(indice.buscar("HORÁRIO sábado", null, 0, 10)));
+		assertEquals(List.of(1), ids(indice.buscar("horario corte", null, 0, 10)));
+		assertEquals(0, indice.buscar("de o a", null, 0, 10).total());
+	}
+
+	@Test
+	void ultimoTermoValeComoPrefixoEFiltraPorConversa() {
+		IndiceBuscaChat indice = new IndiceBuscaChat();
+		indice.adicionar(mensagem(1, 10, "Pedi reembolso ontem"));
+		indice.adicionar(mensagem(2, 11, "Reembolsaram o pagamento?"));
+		indice.adicionar(mensagem(3, 11, "Obrigado"));
+
+		assertEquals(List.of(2, 1), ids(indice.buscar("reemb", null, 0, 10)));
+		assertEquals(List.of(2), ids(indice.buscar("reemb", 11, 0, 10)));
+		// Prefixo curto demais não abre a busca
+		assertEquals(0, indice.buscar("re", null, 0, 10).total());
+	}
+
+	@Test
+	void paginaOrdenaPorRelevanciaEIgnoraRemovidas() {
+		IndiceBuscaChat indice = new IndiceBuscaChat();
+		indice.adicionar(mensagem(1, 10, "barba"));
+		indice.adicionar(mensagem(2, 10, "barba barba e bigode"));
+		indice.adicionar(mensagem(3, 10, "quero fazer a barba amanhã cedo antes do trabalho"));
+		assertFalse(indice.adicionar(mensagem(1, 10, "barba")));
+
+		Pagina primeira = indice.buscar("barba", null, 0, 2);
+		assertEquals(3, primeira.total());
+		assertEquals(List.of(2, 1), ids(primeira));
+		assertEquals(List.of(3), ids(indice.buscar("barba", null, 1, 2)));
+
+		indice.remover(2);
+		assertEquals(List.of(1, 3), ids(indice.buscar("barba", null, 0, 10)));
+		assertEquals(2, indice.tamanho());
+	}
+
+	@Test
+	void removidaSaiDasEstatisticasDaPontuacao() {
+		IndiceBuscaChat comRemovida = new IndiceBuscaChat();
+		comRemovida.adicionar(mensagem(1, 10, "barba"));
+		comRemovida.adicionar(mensagem(2, 10, "barba barba bigode bigode navalha navalha tesoura"));
+		comRemovida.adicionar(mensagem(3, 10, "barba e bigode"));
+		comRemovida.remover(2);
+		comRemovida.remover(2);
+
+		IndiceBuscaChat semRemovida = new IndiceBuscaChat();
+		semRemovida.adicionar(mensagem(1, 10, "barba"));
+		semRemovida.adicionar(mensagem(3, 10, "barba e bigode"));
+
+		Pagina esperada = semRemovida.buscar("barba", null, 0, 10);
+		Pagina obtida = comRemovida.buscar("barba", null, 0, 10);
+		assertEquals(esperada.total(), obtida.total());
+		for (int i = 0; i < esperada.resultados().size(); i++) {
+			assertEquals(esperada.resultados().get(i).pontuacao(), obtida.resultados().get(i).pontuacao(), 1e-9);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import br.itb.projeto.pizzaria3b.service.IndiceOcupacao.Intervalo;
+
+class IndiceOcupacaoTests {
+
+	private static final LocalDate DIA = LocalDate.of(2025, 3, 10);
+
+	private static Intervalo intervalo(long id, long barbeiroId, int hora, int minuto, int duracao) {
+		LocalDateTime inicio = DIA.atTime(hora, minuto);
+		return new Intervalo(id, barbeiroId, inicio, inicio.plusMinutes(duracao));
+	}
+
+	@Test
+	void sondaAchaSobreposicaoComIntervaloLongoQueComecouAntes() {
+		IndiceOcupacao indice = new IndiceOcupacao();
+		indice.carregar(() -> List.of(intervalo(1, 7, 9, 0, 120), intervalo(2, 7, 13, 0, 30)));
+
+		// Começa depois do início do intervalo de 2h, mas ainda dentro dele
+		assertTrue(indice.conflita(7L, DIA.atTime(10, 30), DIA.atTime(11, 0)));
+		// Encostar no fim ou no início não é sobreposição
+		assertFalse(indice.conflita(7L, DIA.atTime(11, 0), DIA.atTime(13, 0)));
+		assertTrue(indice.conflita(7L, DIA.atTime(12, 45), DIA.atTime(13, 15)));
+		assertFalse(indice.conflita(8L, DIA.atTime(9, 0), DIA.atTime(10, 0)));
+		assertFalse(indice.conflita(7L, DIA.atTime(9, 30), DIA.atTime(10, 0), 1L));
+	}
+
+	@Test
+	void mapaMarcaFatiasParciaisEIntervaloQueAtravessaAMeiaNoite() {
+		IndiceOcupacao indice = new IndiceOcupacao();
+		indice.carregar(() -> List.of(intervalo(1, 7, 9, 2, 10), intervalo(2, 7, 23, 30, 60)));
+
+		long[] mapa = indice.mapaOcupacao(7L, DIA);
+		int nove = 9 * 60 / IndiceOcupacao.MINUTOS_POR_FATIA;
+		// 9:02-9:12 ocupa as fatias de 9:00, 9:05 e 9:10
+		assertTrue(IndiceOcupacao.livre(mapa, nove - 1, 1));
+		assertFalse(IndiceOcupacao.livre(mapa, nove, 1));
+		assertFalse(IndiceOcupacao.livre(mapa, nove + 2, 1));
+		assertTrue(IndiceOcupacao.livre(mapa, nove + 3, 6));
+		assertFalse(IndiceOcupacao.livre(mapa, IndiceOcupacao.FATIAS_POR_DIA - 1, 1));
+
+		long[] seguinte = indice.mapaOcupacao(7L, DIA.plusDays(1));
+		assertFalse(IndiceOcupacao.livre(seguinte, 0, 6));
+		assertTrue(IndiceOcupacao.livre(seguinte, 6, 1));
+	}
+
+	@Test
+	void readicionarOMesmoAgendamentoMoveOHorarioEAtualizaOMapa() {
+		IndiceOcupacao indice = new IndiceOcupacao();
+		indice.carregar(() -> List.of(intervalo(1, 7, 9, 0, 30)));
+		int nove = 9 * 60 / IndiceOcupacao.MINUTOS_POR_FATIA;
+		assertFalse(IndiceOcupacao.livre(indice.mapaOcupacao(7L, DIA), nove, 6));
+
+		// Reagendamento para outro barbeiro e outro horário
+		indice.adicionar(intervalo(1, 8, 14, 0, 30));
+
+		assertFalse(indice.conflita(7L, DIA.atTime(9, 0), DIA.atTime(9, 30)));
+		assertTrue(IndiceOcupacao.livre(indice.mapaOcupacao(7L, DIA), nove, 6));
+		assertTrue(indice.conflita(8L, DIA.atTime(14, 15), DIA.atTime(14, 45)));
+	}
+
+	@Test
+	void mudancasFeitasDuranteARecargaNaoSePerdem() {
+		IndiceOcupacao indice = new IndiceOcupacao();
+		indice.carregar(() -> List.of(intervalo(1, 7, 9, 0, 30)));
+
+		// A leitura do banco não viu o agendamento 2 nem a remoção do 1
+		int total = indice.carregar(() -> {
+			indice.adicionar(intervalo(2, 7, 10, 0, 30));
+			indice.remover(1L);
+			return List.of(intervalo(1, 7, 9, 0, 30));
+		});
+
+		assertEquals(1, total);
+		assertTrue(indice.conflita(7L, DIA.atTime(10, 0), DIA.atTime(10, 30)));
+		assertFalse(indice.conflita(7L, DIA.atTime(9, 0), DIA.atTime(9, 30)));
+	}
+}
@@ -0,0 +1,43 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+class ReservasHorarioTests {
+
+	private static final LocalDateTime INICIO = LocalDateTime.of(2030, 5, 10, 19, 0);
+
+	@Test
+	void limpezaTiraReservasVencidasDeBarbeirosQueNinguemConsultou() {
+		ReservasHorario reservas = new ReservasHorario();
+		String vencida = reservas.reservar(1L, 10L, INICIO, INICIO.plusMinutes(30)).token();
+		reservas.reservar(2L, 20L, INICIO, INICIO.plusMinutes(30));
+
+		reservas.limpar(LocalDateTime.now().plus(ReservasHorario.VALIDADE).plusSeconds(1));
+
+		assertEquals(0, reservas.tamanho());
+		assertFalse(reservas.liberar(vencida));
+		assertTrue(reservas.ativas(1L).isEmpty());
+	}
+
+	@Test
+	void limpezaMantemReservasValidasEOToken() {
+		ReservasHorario reservas = new ReservasHorario();
+		String token = reservas.reservar(1L, 10L, INICIO, INICIO.plusMinutes(30)).token();
+
+		reservas.limpar(LocalDateTime.now());
+
+		assertEquals(1, reservas.tamanho());
+		assertTrue(reservas.conflita(1L, INICIO, INICIO.plusMinutes(15), 11L));
+		// Agenda que ficou vazia depois da limpeza volta a ser criada na próxima reserva
+		assertTrue(reservas.liberar(token));
+		reservas.limpar(LocalDateTime.now());
+		reservas.reservar(1L, 11L, INICIO, INICIO.plusMinutes(30));
+		assertEquals(1, reservas.ativas(1L).size());
+	}
+}
@@ -0,0 +1,62 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import br.itb.projeto.pizzaria3b.service.RetencaoChatService.Politica;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RetencaoChatServiceTests {
+
+	@Test
+	void andaEmBlocosPelaChaveAteUmBlocoIncompleto() {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		List<Object> cursores = new ArrayList<>();
+		List<List<Integer>> blocos = List.of(List.of(1, 2), List.of(5, 7), List.of(9));
+		when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(Object[].class))).thenAnswer(invocation -> {
+			// Argumentos: sql, tipo, tamanho do bloco, último id
+			cursores.add(invocation.getArgument(3));
+			return blocos.get(cursores.size() - 1);
+		});
+		BuscaChatService buscaChatService = mock(BuscaChatService.class);
+		CaixaEntradaService caixaEntradaService = mock(CaixaEntradaService.class);
+		ContadorNaoLidas contadorNaoLidas = mock(ContadorNaoLidas.class);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		RetencaoChatService retencao = new RetencaoChatService(jdbcTemplate, buscaChatService, caixaEntradaService,
+				contadorNaoLidas, meterRegistry, 2, 0, 10, 0, "arquivar", 0);
+
+		assertEquals(5, retencao.apagarMensagensVazias());
+		assertEquals(List.of(0, 2, 7), cursores);
+		assertEquals(5, meterRegistry.get("chat.retencao.linhas").tag("politica", "mensagens-vazias").counter().count());
+		assertEquals(5, meterRegistry.get("chat.retencao.progresso").tag("politica", "mensagens-vazias").gauge().value());
+		verify(buscaChatService, times(3)).remover(any());
+		// Índice novo no fim, sem as removidas ocupando memória
+		verify(buscaChatService).carregar();
+		verify(caixaEntradaService).invalidar();
+		verify(contadorNaoLidas).recarregar();
+	}
+
+	@Test
+	void politicaComArquivoCopiaAsLinhasNoMesmoComando() {
+		String sql = RetencaoChatService.sqlBloco(new Politica("mensagens-antigas", "MensagemConversa",
+				"iniciadoEm < ?", List.of(), "MensagemConversaArquivo"));
+
+		assertTrue(sql.startsWith("WITH bloco AS (SELECT TOP (?) * FROM MensagemConversa WHERE id > ? AND (iniciadoEm < ?) ORDER BY id)"));
+		assertTrue(sql.contains("OUTPUT DELETED.id, DELETED.conversa_id"));
+		assertTrue(sql.contains("INTO MensagemConversaArquivo (id, conversa_id, seq"));
+		assertTrue(sql.endsWith("OUTPUT DELETED.id"));
+	}
+}
@@ -0,0 +1,56 @@
+package br.itb.projeto.pizzaria3b.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RodaTemporizacaoTests {
+
+	private static final long MINUTO = 60 * 1000;
+
+	@Test
+	void venceSomenteNoTickDoPrazoMesmoDepoisDeVariasVoltas() {
+		RodaTemporizacao<Long, String> roda = new RodaTemporizacao<>(MINUTO, 8, 0);
+		roda.agendar(1L, "em 3 minutos", 3 * MINUTO);
+		// 8 posições: 19 minutos caem na mesma posição de 3 minutos, duas voltas depois
+		roda.agendar(2L, "em 19 minutos", 19 * MINUTO);
+
+		assertEquals(List.of(), roda.avancar(2 * MINUTO));
+		assertEquals(List.of("em 3 minutos"), roda.avancar(3 * MINUTO));
+		assertEquals(List.of(), roda.avancar(18 * MINUTO));
+		assertEquals(List.of("em 19 minutos"), roda.avancar(19 * MINUTO));
+		assertEquals(0, roda.tamanho());
+	}
+
+	@Test
+	void cancelarEReagendarSubstituemAEntradaAnterior() {
+		RodaTemporizacao<Long, String> roda = new RodaTemporizacao<>(MINUTO, 16, 0);
+		roda.agendar(1L, "original", 5 * MINUTO);
+		roda.agendar(1L, "reagendado", 10 * MINUTO);
+		roda.agendar(2L, "cancelado", 5 * MINUTO);
+
+		assertTrue(roda.cancelar(2L));
+		assertFalse(roda.cancelar(2L));
+		assertEquals(List.of(), roda.avancar(5 * MINUTO));
+		assertEquals(List.of("reagendado"), roda.avancar(10 * MINUTO));
+	}
+
+	@Test
+	void saltoMaiorQueUmaVoltaVenceTudoQueJaPassou() {
+		RodaTemporizacao<Long, String> roda = new RodaTemporizacao<>(MINUTO, 4, 0);
+		roda.agendar(1L, "a", 1 * MINUTO);
+		roda.agendar(2L, "b", 6 * MINUTO);
+		roda.agendar(3L, "c", 30 * MINUTO);
+		// Prazo no passado vence no próximo avanço
+		roda.agendar(4L, "d", -5 * MINUTO);
+
+		List<String> vencidos = roda.avancar(10 * MINUTO);
+		assertEquals(3, vencidos.size());
+		assertTrue(vencidos.containsAll(List.of("a", "b", "d")));
+		assertTrue(roda.contem(3L));
+	}
+}
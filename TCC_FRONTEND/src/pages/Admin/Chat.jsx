@@ -2,6 +2,7 @@ import React, { useState, useEffect, useRef } from 'react';
 import { Send, User, Search, MessageSquare, ChevronRight, Clock, Trash2 } from 'lucide-react';
 import axios from 'axios';
 import { format } from 'date-fns';
+import { assinarChat, juntarMensagens, ultimoSeq } from '../../services/chatSocket';
 
 const AdminChat = () => {
   const [barbers, setBarbers] = useState([]);
@@ -10,6 +11,8 @@ const AdminChat = () => {
   const [newMessage, setNewMessage] = useState('');
   const [searchTerm, setSearchTerm] = useState('');
   const messagesEndRef = useRef(null);
+  const selectedBarberRef = useRef(null);
+  const messagesRef = useRef([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
   const [animateIn, setAnimateIn] = useState(false);
@@ -20,35 +23,107 @@ const AdminChat = () => {
 
   useEffect(() => {
     fetchBarbers();
+    // Todas as conversas chegam por /topic/chat/admin; a aberta recebe as da sua conversa
+    const fechar = assinarChat('/topic/chat/admin', {
+      onMessage: (mensagem) => {
+        if (mensagem.tipo !== 'barbeiro') return;
+        const aberto = selectedBarberRef.current;
+        const naConversaAberta = aberto && mensagem.participante_id === aberto.id;
+        if (naConversaAberta) {
+          setMessages((atuais) => juntarMensagens(atuais, [mensagem]));
+          if (mensagem.sender_id !== 1) markRead(mensagem.conversa_id, mensagem.seq);
+        }
+        setBarbers((atuais) => atualizarCaixa(atuais, mensagem, naConversaAberta));
+      },
+      // Reconectou: busca só o que chegou enquanto estava desconectado
+      onConnect: () => {
+        if (selectedBarberRef.current) fetchNewMessages(selectedBarberRef.current.id);
+      }
+    });
     // Efeito cinematográfico: animar entrada dos elementos
     setTimeout(() => setAnimateIn(true), 100);
+    return () => fechar();
   }, []);
 
   useEffect(() => {
+    selectedBarberRef.current = selectedBarber;
     if (selectedBarber) {
+      // Histórico uma vez, ao abrir a conversa
+      setMessages([]);
       fetchMessages(selectedBarber.id);
-      const interval = setInterval(() => fetchMessages(selectedBarber.id), 2000);
-      return () => clearInterval(interval);
+      if (selectedBarber.unread > 0) {
+        markRead(selectedBarber.conversa_id);
+        setBarbers((atuais) => atuais.map((item) => (item.id === selectedBarber.id ? { ...item, unread: 0 } : item)));
+      }
     }
   }, [selectedBarber]);
 
   useEffect(() => {
+    messagesRef.current = messages;
     scrollToBottom();
   }, [messages]);
 
+  // Uma entrada da caixa de entrada por barbeiro: conversa, última mensagem e não lidas
+  const atualizarCaixa = (atuais, mensagem, lida) => {
+    const anterior = atuais.find((item) => item.id === mensagem.participante_id);
+    if (!anterior) return atuais;
+    const atualizado = {
+      ...anterior,
+      conversa_id: mensagem.conversa_id,
+      last_seq: mensagem.seq,
+      last_message: mensagem.message,
+      last_at: mensagem.created_at,
+      unread: lida || mensagem.sender_id === 1 ? anterior.unread || 0 : (anterior.unread || 0) + 1
+    };
+    // A conversa com a mensagem mais nova sobe para o topo
+    return [atualizado, ...atuais.filter((item) => item !== anterior)];
+  };
+
+  const markRead = async (conversaId, ate) => {
+    if (!conversaId) return;
+    try {
+      await axios.post(`https://tcc-upeo.onrender.com/api/chat/conversas/${conversaId}/read?leitor=admin${ate ? `&ate=${ate}` : ''}`);
+    } catch (error) {
+      console.error('Error marking messages as read:', error);
+    }
+  };
+
   const fetchBarbers = async () => {
     try {
-      console.log('Buscando barbeiros...');
-      const response = await axios.get('https://tcc-upeo.onrender.com/api/chat/barbers');
-      console.log('Resposta da API:', response.data);
+      console.log('Buscando conversas...');
+      // A caixa de entrada já traz a última mensagem e as não lidas de cada conversa;
+      // a lista de barbeiros só completa quem ainda não tem conversa
+      const [inbox, todos] = await Promise.all([
+        axios.get('https://tcc-upeo.onrender.com/api/chat/inbox'),
+        axios.get('https://tcc-upeo.onrender.com/api/chat/barbers')
+      ]);
+      const emails = new Map((Array.isArray(todos.data) ? todos.data : []).map((barber) => [barber.id, barber.email]));
+      const conversas = (Array.isArray(inbox.data) ? inbox.data : [])
+        .filter((entrada) => entrada.tipo === 'barbeiro')
+        .map((entrada) => ({
+          id: entrada.participante_id,
+          name: entrada.name,
+          email: emails.get(entrada.participante_id),
+          conversa_id: entrada.conversa_id,
+          last_seq: entrada.last_seq,
+          last_message: entrada.last_message,
+          last_at: entrada.last_at,
+          unread: entrada.unread
+        }));
+      const comConversa = new Set(conversas.map((conversa) => conversa.id));
+      const semConversa = (Array.isArray(todos.data) ? todos.data : [])
+        .filter((barber) => !comConversa.has(barber.id))
+        .map((barber) => ({ ...barber, unread: 0 }));
+      const lista = [...conversas, ...semConversa];
+      console.log('Conversas:', lista);
       
-      if (Array.isArray(response.data) && response.data.length > 0) {
-        setBarbers(response.data);
+      if (lista.length > 0) {
+        setBarbers(lista);
         
         // Selecionar o primeiro barbeiro automaticamente
-        if (!selectedBarber) {
-          console.log('Selecionando barbeiro:', response.data[0]);
-          setSelectedBarber(response.data[0]);
+        if (!selectedBarberRef.current) {
+          console.log('Selecionando barbeiro:', lista[0]);
+          setSelectedBarber(lista[0]);
         }
       } else {
         console.log('Nenhum barbeiro encontrado');
@@ -70,7 +145,9 @@ const AdminChat = () => {
       console.log('Mensagens recebidas:', response.data);
       
       if (Array.isArray(response.data)) {
-        setMessages(response.data);
+        // Outra conversa foi aberta enquanto esta carregava
+        if (selectedBarberRef.current?.id !== barberId) return;
+        setMessages((atuais) => juntarMensagens(atuais, response.data));
       } else {
         console.error('Formato de resposta inválido:', response.data);
         setMessages([]);
@@ -82,6 +159,18 @@ const AdminChat = () => {
     }
   };
 
+  const fetchNewMessages = async (barberId) => {
+    try {
+      const since = ultimoSeq(messagesRef.current);
+      const response = await axios.get(`https://tcc-upeo.onrender.com/api/chat/admin-messages/${barberId}?since=${since}`);
+      if (Array.isArray(response.data) && selectedBarberRef.current?.id === barberId) {
+        setMessages((atuais) => juntarMensagens(atuais, response.data));
+      }
+    } catch (error) {
+      console.error('Error fetching new messages:', error);
+    }
+  };
+
   const handleSend = async () => {
     if (!newMessage.trim() || !selectedBarber) return;
 
@@ -94,7 +183,7 @@ const AdminChat = () => {
       created_at: new Date().toISOString()
     };
     
-    setMessages([...messages, tempMessage]);
+    setMessages((atuais) => [...atuais, tempMessage]);
     const messageCopy = newMessage;
     setNewMessage('');
 
@@ -103,15 +192,21 @@ const AdminChat = () => {
       const response = await axios.post('https://tcc-upeo.onrender.com/api/chat/send', {
         message: messageCopy,
         receiver_id: selectedBarber.id,
-        sender_id: 1 // Admin ID
+        receiver_type: 'barbeiro',
+        sender_id: 1, // Admin ID
+        sender_type: 'admin'
       });
       
       console.log('Resposta do servidor:', response.data);
       
-      // Buscar mensagens atualizadas após enviar
-      setTimeout(() => fetchMessages(selectedBarber.id), 1000);
+      // Troca a temporária pela gravada (a mesma pode já ter chegado pelo WebSocket)
+      setMessages((atuais) => juntarMensagens(
+        atuais.filter((mensagem) => mensagem.id !== tempMessage.id),
+        [response.data.data]
+      ));
     } catch (error) {
       console.error('Error sending message:', error);
+      setMessages((atuais) => atuais.filter((mensagem) => mensagem.id !== tempMessage.id));
       setError('Falha ao enviar mensagem: ' + (error.response?.data || error.message));
     }
   };
@@ -259,8 +354,13 @@ const AdminChat = () => {
                       </div>
                       <div className="flex-1 min-w-0">
                         <p className="font-medium text-white truncate">{barber.name}</p>
-                        <p className="text-sm text-gray-400 truncate">{barber.email}</p>
+                        <p className="text-sm text-gray-400 truncate">{barber.last_message || barber.email}</p>
                       </div>
+                      {barber.unread > 0 && (
+                        <span className="min-w-[1.5rem] h-6 px-2 rounded-full bg-[#c4a47c] text-black text-xs font-semibold flex items-center justify-center">
+                          {barber.unread}
+                        </span>
+                      )}
                       <ChevronRight className={`h-5 w-5 text-gray-400 transition-transform duration-300 ${selectedBarber?.id === barber.id ? 'translate-x-1 text-[#c4a47c]' : ''}`} />
                     </div>
                   </div>
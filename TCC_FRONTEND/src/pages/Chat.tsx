@@ -3,12 +3,15 @@ import { Send, Bot, MessageSquare, Clock } from 'lucide-react';
 import { useAuth } from '../contexts/AuthContext';
 import axios from 'axios';
 import { format } from 'date-fns';
+import { assinarChat, juntarMensagens, ultimoSeq } from '../services/chatSocket';
 
 const Chat = () => {
   const { user } = useAuth();
   const [messages, setMessages] = useState([]);
   const [newMessage, setNewMessage] = useState('');
   const messagesEndRef = useRef(null);
+  const messagesRef = useRef([]);
+  const historicoRef = useRef(false);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
   const [animateIn, setAnimateIn] = useState(false);
@@ -18,14 +21,28 @@ const Chat = () => {
   };
 
   useEffect(() => {
-    fetchMessages();
-    const interval = setInterval(fetchMessages, 3000);
+    // Histórico uma vez só, logo depois de assinar o tópico; depois as mensagens chegam pelo
+    // WebSocket e, a cada reconexão, busca com since o que chegou enquanto estava desconectado
+    const fechar = user?.id
+      ? assinarChat(`/topic/chat/barbeiro/${user.id}`, {
+          onMessage: (mensagem) => setMessages((atuais) => juntarMensagens(atuais, [mensagem])),
+          onConnect: () => (historicoRef.current ? fetchNewMessages() : fetchMessages())
+        })
+      : null;
+    // Sem WebSocket, o histórico não pode esperar a conexão
+    const reserva = setTimeout(() => {
+      if (!historicoRef.current) fetchMessages();
+    }, 3000);
     // Efeito cinematográfico: animar entrada dos elementos
     setTimeout(() => setAnimateIn(true), 100);
-    return () => clearInterval(interval);
+    return () => {
+      clearTimeout(reserva);
+      fechar?.();
+    };
   }, []);
 
   useEffect(() => {
+    messagesRef.current = messages;
     scrollToBottom();
   }, [messages]);
 
@@ -40,12 +57,14 @@ const Chat = () => {
       console.log('Buscando mensagens para o barbeiro ID:', user.id);
       
       // Buscar mensagens do barbeiro atual (usando seu ID real)
-      const response = await axios.get(`https://tcc-upeo.onrender.com/api/chat/messages/${user.id}`);
+      const response = await axios.get(`https://tcc-upeo.onrender.com/api/chat/messages/${user.id}?tipo=barbeiro`);
       
       console.log('Mensagens recebidas:', response.data);
       
       if (Array.isArray(response.data)) {
-        setMessages(response.data);
+        // Junta em vez de trocar: alguma pode ter chegado pelo WebSocket durante a busca
+        setMessages((atuais) => juntarMensagens(atuais, response.data));
+        historicoRef.current = true;
       } else {
         console.error('Formato de resposta inválido:', response.data);
         setMessages([]);
@@ -58,6 +77,18 @@ const Chat = () => {
     }
   };
 
+  const fetchNewMessages = async () => {
+    try {
+      const since = ultimoSeq(messagesRef.current);
+      const response = await axios.get(`https://tcc-upeo.onrender.com/api/chat/messages/${user.id}?tipo=barbeiro&since=${since}`);
+      if (Array.isArray(response.data)) {
+        setMessages((atuais) => juntarMensagens(atuais, response.data));
+      }
+    } catch (error) {
+      console.error('Error fetching new messages:', error);
+    }
+  };
+
   const handleSend = async () => {
     if (!newMessage.trim()) return;
     
@@ -77,28 +108,34 @@ const Chat = () => {
     };
     
     // Adicionar à lista de mensagens exibidas
-    setMessages([...messages, tempMessage]);
+    setMessages((atuais) => [...atuais, tempMessage]);
+    const messageCopy = newMessage;
     
     // Limpar campo de texto
     setNewMessage('');
     
     try {
       console.log('Enviando mensagem como barbeiro ID:', user.id);
-      console.log('Conteúdo da mensagem:', newMessage);
+      console.log('Conteúdo da mensagem:', messageCopy);
       
       // Enviar para o servidor
       const response = await axios.post('https://tcc-upeo.onrender.com/api/chat/send', {
-        message: newMessage,
+        message: messageCopy,
         sender_id: parseInt(user.id), // Garantir que é um número
+        sender_type: 'barbeiro',
         receiver_id: 1 // Admin ID é sempre 1
       });
       
       console.log('Resposta do servidor:', response.data);
       
-      // Atualizar mensagens após envio
-      setTimeout(fetchMessages, 1000);
+      // Troca a temporária pela gravada (a mesma pode já ter chegado pelo WebSocket)
+      setMessages((atuais) => juntarMensagens(
+        atuais.filter((mensagem) => mensagem.id !== tempMessage.id),
+        [response.data.data]
+      ));
     } catch (error) {
       console.error('Error sending message:', error);
+      setMessages((atuais) => atuais.filter((mensagem) => mensagem.id !== tempMessage.id));
       setError('Erro ao enviar mensagem. Tente novamente.');
     }
   };
@@ -144,6 +181,7 @@ const Chat = () => {
                   axios.post(`https://tcc-upeo.onrender.com/api/chat/reset-user-chats/${user.id}`)
                     .then(response => {
                       alert('Seu histórico de conversa foi limpo com sucesso!');
+                      setMessages([]);
                       fetchMessages();
                     })
                     .catch(error => {
@@ -152,6 +190,7 @@ const Chat = () => {
                       axios.post('https://tcc-upeo.onrender.com/api/chat/reset-chats')
                         .then(() => {
                           alert('Seu histórico de conversa foi limpo com sucesso!');
+                          setMessages([]);
                           fetchMessages();
                         })
                         .catch(err => {
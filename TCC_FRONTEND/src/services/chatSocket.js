@@ -0,0 +1,101 @@
+import { API_BASE_URL } from '../config/api';
+
+// https://host/api -> wss://host/ws
+const WS_URL = API_BASE_URL.replace(/^http/, 'ws').replace(/\/api\/?$/, '') + '/ws';
+
+const montarFrame = (comando, cabecalhos, corpo = '') =>
+  comando + '\n' +
+  Object.entries(cabecalhos).map(([nome, valor]) => `${nome}:${valor}\n`).join('') +
+  '\n' + corpo + '\0';
+
+const lerFrame = (texto) => {
+  const fimCabecalhos = texto.indexOf('\n\n');
+  const linhas = texto.slice(0, fimCabecalhos).split('\n');
+  const cabecalhos = {};
+  linhas.slice(1).forEach((linha) => {
+    const separador = linha.indexOf(':');
+    cabecalhos[linha.slice(0, separador)] = linha.slice(separador + 1);
+  });
+  return { comando: linhas[0], cabecalhos, corpo: texto.slice(fimCabecalhos + 2) };
+};
+
+/**
+ * Assina um tópico do chat (/topic/chat/...) pelo WebSocket do backend, com o
+ * token do login no CONNECT. Se a conexão cair, reconecta com espera crescente.
+ * onConnect roda a cada conexão: é a hora de buscar com since=<último seq> o que
+ * chegou enquanto estava desconectado. Devolve a função que fecha a assinatura.
+ */
+export const assinarChat = (destino, { onMessage, onConnect }) => {
+  let socket = null;
+  let encerrado = false;
+  let tentativas = 0;
+  let espera = null;
+
+  const conectar = () => {
+    socket = new WebSocket(WS_URL);
+
+    socket.onopen = () => {
+      socket.send(montarFrame('CONNECT', {
+        'accept-version': '1.2',
+        'heart-beat': '0,0',
+        Authorization: `Bearer ${localStorage.getItem('token') || ''}`
+      }));
+    };
+
+    socket.onmessage = (evento) => {
+      // Um pacote pode trazer mais de um frame; linhas vazias entre eles são heart-beats
+      String(evento.data).split('\0').forEach((bruto) => {
+        const texto = bruto.replace(/^\n+/, '');
+        if (!texto) return;
+        const frame = lerFrame(texto);
+        if (frame.comando === 'CONNECTED') {
+          tentativas = 0;
+          socket.send(montarFrame('SUBSCRIBE', { id: 'chat-0', destination: destino }));
+          onConnect?.();
+        } else if (frame.comando === 'MESSAGE') {
+          try {
+            onMessage(JSON.parse(frame.corpo));
+          } catch (error) {
+            console.error('Mensagem do chat inválida:', error);
+          }
+        } else if (frame.comando === 'ERROR') {
+          console.error('Erro no WebSocket do chat:', frame.cabecalhos.message || frame.corpo);
+        }
+      });
+    };
+
+    socket.onclose = () => {
+      if (encerrado) return;
+      espera = setTimeout(conectar, Math.min(30000, 1000 * 2 ** tentativas));
+      tentativas += 1;
+    };
+  };
+
+  conectar();
+
+  return () => {
+    encerrado = true;
+    clearTimeout(espera);
+    if (socket?.readyState === WebSocket.OPEN) {
+      socket.send(montarFrame('DISCONNECT', {}));
+    }
+    socket?.close();
+  };
+};
+
+/**
+ * Junta mensagens novas (do histórico, do since ou do WebSocket) às que estão
+ * na tela: sem repetir id, em ordem de seq, com as temporárias do envio no fim.
+ */
+export const juntarMensagens = (atuais, novas) => {
+  const porId = new Map();
+  [...atuais, ...novas].forEach((mensagem) => porId.set(mensagem.id, mensagem));
+  const temporaria = (mensagem) => String(mensagem.id).startsWith('temp-');
+  return [...porId.values()].sort((a, b) => {
+    if (temporaria(a) !== temporaria(b)) return temporaria(a) ? 1 : -1;
+    return (a.seq ?? 0) - (b.seq ?? 0);
+  });
+};
+
+export const ultimoSeq = (mensagens) =>
+  mensagens.reduce((maior, mensagem) => Math.max(maior, mensagem.seq ?? 0), 0);